@@ -24,58 +24,40 @@ package be.brunoparmentier.openbikesharing.app.activities;
 import android.app.Activity;
 import android.app.SearchManager;
 import android.content.Context;
-import android.content.SharedPreferences;
-import android.os.AsyncTask;
 import android.os.Bundle;
-import android.preference.PreferenceManager;
-import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
-import android.widget.ArrayAdapter;
 import android.widget.AdapterView;
 import android.widget.ListView;
 import android.widget.SearchView;
 import android.widget.Toast;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.List;
 
 import be.brunoparmentier.openbikesharing.app.R;
 import be.brunoparmentier.openbikesharing.app.adapters.BikeNetworksListAdapter;
-import be.brunoparmentier.openbikesharing.app.db.NetworksDataSource;
+import be.brunoparmentier.openbikesharing.app.db.AsyncDataSource;
 import be.brunoparmentier.openbikesharing.app.models.BikeNetworkInfo;
-import be.brunoparmentier.openbikesharing.app.parsers.BikeNetworksListParser;
+
+import fr.fdesousa.bikesharinghub.index.NetworksSearchIndex;
+import fr.fdesousa.bikesharinghub.network.StationsRefreshManager;
 
 public class BikeNetworksListActivity extends Activity {
     private static final String TAG = BikeNetworksListActivity.class.getSimpleName();
 
-    private static final String DEFAULT_API_URL = "https://api.citybik.es/v2/";
-    private static final String PREF_KEY_API_URL = "pref_api_url";
-
-    private Comparator<BikeNetworkInfo> mLocationComparator = new Comparator<BikeNetworkInfo>() {
-        public int compare(BikeNetworkInfo network1, BikeNetworkInfo network2) {
-            return String.CASE_INSENSITIVE_ORDER.compare(
-                        network1.getLocationName(), network2.getLocationName());
-        }
-    };
-
     private ListView listView;
     private HashMap<String, BikeNetworkInfo> BikeNetworksHashMap;
-    private ArrayList<String> savedNetworksList;
-    private ArrayList<String> cannotFetchNetworksList;
+    private HashMap<String, BikeNetworkInfo> savedNetworksInfo;
+    private HashSet<String> savedNetworks;
+    private HashSet<String> cannotFetchNetworks;
+    private NetworksSearchIndex networksSearchIndex;
     private BikeNetworksListAdapter bikeNetworksListAdapter;
-    private NetworksDataSource networksDataSource;
+    private AsyncDataSource asyncDataSource;
+    private String searchQuery;
 
 
     @Override
@@ -85,12 +67,18 @@ public class BikeNetworksListActivity extends Activity {
         getActionBar().setDisplayHomeAsUpEnabled(true);
 
         BikeNetworksHashMap = new HashMap<String, BikeNetworkInfo>();
-        cannotFetchNetworksList = new ArrayList<String>();
-        networksDataSource = new NetworksDataSource(this);
-        savedNetworksList = networksDataSource.getNetworksId();
+        cannotFetchNetworks = new HashSet<String>();
+        asyncDataSource = AsyncDataSource.getInstance(this);
+        savedNetworksInfo = new HashMap<String, BikeNetworkInfo>();
+        savedNetworks = new HashSet<String>();
 
+        bikeNetworksListAdapter = new BikeNetworksListAdapter(this,
+                R.layout.bike_network_item,
+                R.id.network_title,
+                cannotFetchNetworks);
         listView = (ListView) findViewById(R.id.networksListView);
         listView.setChoiceMode(ListView.CHOICE_MODE_MULTIPLE);
+        listView.setAdapter(bikeNetworksListAdapter);
         listView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override
             public void onItemClick(AdapterView<?> parent, View view,
@@ -101,7 +89,7 @@ public class BikeNetworksListActivity extends Activity {
                 }
                 ArrayList<BikeNetworkInfo> networksToKeepList = new ArrayList<>();
                 for (BikeNetworkInfo network : BikeNetworksHashMap.values()) {
-                    if (savedNetworksList.contains(network.getId())) {
+                    if (savedNetworks.contains(network.getId())) {
                         networksToKeepList.add(network);
                     }
                 }
@@ -123,15 +111,43 @@ public class BikeNetworksListActivity extends Activity {
                 } else {
                     getParent().setResult(Activity.RESULT_OK);
                 }
-                networksDataSource.storeNetworks(networksToKeepList);
-                finish();
+                /* the caller refreshes the stations once the networks are stored */
+                listView.setEnabled(false);
+                asyncDataSource.storeNetworks(networksToKeepList, new AsyncDataSource.Callback<Void>() {
+                    @Override
+                    public void onResult(Void result) {
+                        finish();
+                    }
+                });
+            }
+        });
+
+        asyncDataSource.getNetworkInfoList(new AsyncDataSource.Callback<ArrayList<BikeNetworkInfo>>() {
+            @Override
+            public void onResult(ArrayList<BikeNetworkInfo> networks) {
+                if (isFinishing()) {
+                    return;
+                }
+                for (BikeNetworkInfo network : networks) {
+                    savedNetworksInfo.put(network.getId(), network);
+                }
+                savedNetworks.addAll(savedNetworksInfo.keySet());
+                loadNetworksList();
             }
         });
+    }
 
-        String apiUrl = PreferenceManager
-                .getDefaultSharedPreferences(this)
-                .getString(PREF_KEY_API_URL, DEFAULT_API_URL) + "networks";
-        new JSONDownloadTask().execute(apiUrl);
+    private void loadNetworksList() {
+        /* shown from the local copy, then again if it had to be downloaded */
+        StationsRefreshManager.getInstance(this).loadNetworksList(
+                new StationsRefreshManager.NetworksListListener() {
+                    @Override
+                    public void onNetworksListFetched(ArrayList<BikeNetworkInfo> bikeNetworks) {
+                        if (!isFinishing()) {
+                            setNetworks(bikeNetworks);
+                        }
+                    }
+                });
     }
 
     @Override
@@ -152,6 +168,7 @@ public class BikeNetworksListActivity extends Activity {
 
             @Override
             public boolean onQueryTextChange(String s) {
+                searchQuery = s;
                 RefreshAdapter(s);
                 return true;
             }
@@ -161,30 +178,19 @@ public class BikeNetworksListActivity extends Activity {
     }
 
     private void RefreshAdapter(String textCondition) {
-        if(BikeNetworksHashMap == null) {
-            BikeNetworksHashMap = new HashMap<String, BikeNetworkInfo>();
+        if (networksSearchIndex == null) {
+            /* networks not loaded yet */
+            return;
         }
-        ArrayList<BikeNetworkInfo> filteredBikeNetworks = new ArrayList<>();
-        int networksToKeepNb = 0;
-        for (BikeNetworkInfo network : BikeNetworksHashMap.values()) {
-            if (textCondition == null || (network.getName().toLowerCase().contains(textCondition.toLowerCase())
-                    || network.getLocationName().toLowerCase().contains(textCondition.toLowerCase()))) {
-                filteredBikeNetworks.add(network);
-                if (savedNetworksList.contains(network.getId())) {
-                    Collections.swap(filteredBikeNetworks, filteredBikeNetworks.indexOf(network), networksToKeepNb);
-                    networksToKeepNb++;
-                }
-            }
+        List<BikeNetworkInfo> filteredBikeNetworks = networksSearchIndex.filter(textCondition);
+        bikeNetworksListAdapter.setNetworks(filteredBikeNetworks, cannotFetchNetworks);
+
+        /* the index lists the saved networks first */
+        listView.clearChoices();
+        for (int i = 0; i < filteredBikeNetworks.size()
+                && savedNetworks.contains(filteredBikeNetworks.get(i).getId()); i++) {
+            listView.setItemChecked(i, true);
         }
-
-        Collections.sort(filteredBikeNetworks.subList(0, networksToKeepNb), mLocationComparator);
-        Collections.sort(filteredBikeNetworks.subList(networksToKeepNb, filteredBikeNetworks.size()), mLocationComparator);
-        bikeNetworksListAdapter = new BikeNetworksListAdapter(BikeNetworksListActivity.this,
-                R.layout.bike_network_item,
-                R.id.network_title,
-                filteredBikeNetworks,
-                cannotFetchNetworksList);
-        listView.setAdapter(bikeNetworksListAdapter);
     }
 
     @Override
@@ -197,54 +203,27 @@ public class BikeNetworksListActivity extends Activity {
         return super.onOptionsItemSelected(item);
     }
 
-    private class JSONDownloadTask extends AsyncTask<String, Void, String> {
-
-        @Override
-        protected String doInBackground(String... urls) {
-            try {
-                StringBuilder response = new StringBuilder();
-
-                URL url = new URL(urls[0]);
-                HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-                if (conn.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                    BufferedReader input = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                    String strLine;
-                    while ((strLine = input.readLine()) != null) {
-                        response.append(strLine);
-                    }
-                    input.close();
-                }
-                return response.toString();
-            } catch (IOException e) {
-                return getString(R.string.connection_error);
+    private void setNetworks(ArrayList<BikeNetworkInfo> bikeNetworks) {
+        BikeNetworksHashMap = new HashMap<String, BikeNetworkInfo>();
+        cannotFetchNetworks = new HashSet<String>();
+        if (bikeNetworks != null) {
+            for (int i = 0; i < bikeNetworks.size(); i++) {
+                BikeNetworksHashMap.put(bikeNetworks.get(i).getId(), bikeNetworks.get(i));
             }
+        } else {
+            Toast.makeText(BikeNetworksListActivity.this,
+                    R.string.json_error, Toast.LENGTH_LONG).show();
         }
-
-        @Override
-        protected void onPostExecute(final String result) {
-            try {
-                /* parse result */
-                BikeNetworksListParser bikeNetworksListParser = new BikeNetworksListParser(result);
-                ArrayList<BikeNetworkInfo> bikeNetworks = bikeNetworksListParser.getNetworks();
-                for(int i = 0; i < bikeNetworks.size(); i++) {
-                    BikeNetworksHashMap.put(bikeNetworks.get(i).getId(), bikeNetworks.get(i));
-                }
-            } catch (ParseException e) {
-                Log.e(TAG, e.getMessage());
-                Toast.makeText(BikeNetworksListActivity.this,
-                        R.string.json_error, Toast.LENGTH_LONG).show();
-                BikeNetworksHashMap = new HashMap<String, BikeNetworkInfo>();
-            }
-             /* Take into accounts saved networks: if they are missing
-              * in the fetch data, add them at the queue.
-              */
-            for (String network : savedNetworksList) {
-                if (!BikeNetworksHashMap.containsKey(network)) {
-                    cannotFetchNetworksList.add(network);
-                    BikeNetworksHashMap.put(network, networksDataSource.getNetworkInfoFromId(network));
-                }
+        /* Take into accounts saved networks: if they are missing
+         * in the fetch data, add them at the queue.
+         */
+        for (String network : savedNetworks) {
+            if (!BikeNetworksHashMap.containsKey(network)) {
+                cannotFetchNetworks.add(network);
+                BikeNetworksHashMap.put(network, savedNetworksInfo.get(network));
             }
-            RefreshAdapter(null);
         }
+        networksSearchIndex = new NetworksSearchIndex(BikeNetworksHashMap.values(), savedNetworks);
+        RefreshAdapter(searchQuery);
     }
 }
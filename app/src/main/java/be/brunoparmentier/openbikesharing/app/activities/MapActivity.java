@@ -27,9 +27,6 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.drawable.Drawable;
 import android.location.Location;
 import android.location.LocationManager;
 import android.os.Bundle;
@@ -50,6 +47,7 @@ import android.widget.Toast;
 import org.osmdroid.api.IMapController;
 import org.osmdroid.bonuspack.clustering.RadiusMarkerClusterer;
 import org.osmdroid.config.Configuration;
+import org.osmdroid.events.DelayedMapListener;
 import org.osmdroid.events.MapEventsReceiver;
 import org.osmdroid.tileprovider.cachemanager.CacheManager;
 import org.osmdroid.tileprovider.modules.SqlTileWriter;
@@ -69,12 +67,13 @@ import java.text.DateFormat;
 import java.util.ArrayList;
 
 import be.brunoparmentier.openbikesharing.app.R;
-import be.brunoparmentier.openbikesharing.app.db.NetworksDataSource;
-import be.brunoparmentier.openbikesharing.app.db.StationsDataSource;
+import be.brunoparmentier.openbikesharing.app.db.AsyncDataSource;
+import be.brunoparmentier.openbikesharing.app.models.BikeNetworkInfo;
 import be.brunoparmentier.openbikesharing.app.models.BikeNetworkLocation;
 import be.brunoparmentier.openbikesharing.app.models.Station;
-import be.brunoparmentier.openbikesharing.app.models.StationStatus;
 
+import fr.fdesousa.bikesharinghub.map.MarkerIconCache;
+import fr.fdesousa.bikesharinghub.map.StationMarkersLayer;
 import fr.fdesousa.bikesharinghub.tilesource.CustomTileSource;
 
 public class MapActivity extends Activity implements MapEventsReceiver, ActivityCompat.OnRequestPermissionsResultCallback {
@@ -87,20 +86,20 @@ public class MapActivity extends Activity implements MapEventsReceiver, Activity
     private static final String PREF_KEY_MAP_CACHE_MAX_SIZE = "pref_map_tiles_cache_max_size";
     private static final String PREF_KEY_MAP_CACHE_TRIM_SIZE = "pref_map_tiles_cache_trim_size";
     private static final String PREF_KEY_DB_LAST_UPDATE = "db_last_update";
-    private static final String KEY_STATION = "station";
     private static final String MAP_LAYER_MAPNIK = "mapnik";
     private static final String MAP_LAYER_CYCLEMAP = "cyclemap";
     private static final String MAP_LAYER_OSMPUBLICTRANSPORT = "osmpublictransport";
 
     private static final String[] REQUEST_LOC_LIST = {Manifest.permission.ACCESS_FINE_LOCATION};
     private static final int REQUEST_LOC_PERMISSION_CODE = 1;
+    private static final int MAP_EVENTS_DELAY = 200; // ms
 
     private MapView map;
     private IMapController mapController;
     private MyLocationNewOverlay myLocationOverlay;
     private StationMarkerInfoWindow stationMarkerInfoWindow;
-    private NetworksDataSource networksDataSource;
-    private StationsDataSource stationsDataSource;
+    private StationMarkersLayer stationMarkersLayer;
+    private AsyncDataSource asyncDataSource;
 
     @Override
     protected void onSaveInstanceState(Bundle outState) {
@@ -120,9 +119,7 @@ public class MapActivity extends Activity implements MapEventsReceiver, Activity
 
         setDBLastUpdateText(settings);
 
-        stationsDataSource = new StationsDataSource(this);
-        networksDataSource = new NetworksDataSource(this);
-        ArrayList<Station> stations = stationsDataSource.getStations();
+        asyncDataSource = AsyncDataSource.getInstance(this);
 
         final Context context = getApplicationContext();
         long systemCacheMaxBytes = 1024 * 1024 * Long.valueOf(settings.getString(PREF_KEY_MAP_CACHE_MAX_SIZE, "100"));
@@ -140,15 +137,25 @@ public class MapActivity extends Activity implements MapEventsReceiver, Activity
 
         /* markers list */
         RadiusMarkerClusterer stationsMarkers = new RadiusMarkerClusterer(this);
-        Bitmap clusterIcon = getBitmapFromVectorDrawable(this, R.drawable.marker_cluster);
         map.getOverlays().add(stationsMarkers);
-        stationsMarkers.setIcon(clusterIcon);
+        stationsMarkers.setIcon(MarkerIconCache.getInstance(this).getClusterIcon());
         stationsMarkers.setRadius(100);
 
-        for (final Station station : stations) {
-            stationsMarkers.add(createStationMarker(station));
-        }
-        map.invalidate();
+        /* only create markers for the visible region, once the map knows its bounds */
+        stationMarkersLayer = new StationMarkersLayer(map, stationsMarkers, asyncDataSource,
+                new StationMarkersLayer.MarkerBinder() {
+                    @Override
+                    public void bindMarker(Marker marker, Station station) {
+                        bindStationMarker(marker, station);
+                    }
+                });
+        map.addOnFirstLayoutListener(new MapView.OnFirstLayoutListener() {
+            @Override
+            public void onFirstLayout(View v, int left, int top, int right, int bottom) {
+                stationMarkersLayer.update();
+            }
+        });
+        map.addMapListener(new DelayedMapListener(stationMarkersLayer, MAP_EVENTS_DELAY));
 
         map.getOverlays().add(new CopyrightOverlay(context));
         map.setMultiTouchControls(true);
@@ -203,13 +210,20 @@ public class MapActivity extends Activity implements MapEventsReceiver, Activity
             if (userLocation != null) {
                 mapController.setZoom(16);
                 mapController.animateTo(new GeoPoint(userLocation));
-            } else if (networksDataSource.getNetworkInfoList().size() != 0) {
-                //Arbitrary use the first location of the list
-                BikeNetworkLocation currentNetworkLocation = networksDataSource.getNetworkInfoList().get(0).getLocation();
-                double bikeNetworkLatitude = currentNetworkLocation.getLatitude();
-                double bikeNetworkLongitude = currentNetworkLocation.getLongitude();
-                mapController.setZoom(13);
-                mapController.setCenter(new GeoPoint(bikeNetworkLatitude, bikeNetworkLongitude));
+            } else {
+                asyncDataSource.getNetworkInfoList(new AsyncDataSource.Callback<ArrayList<BikeNetworkInfo>>() {
+                    @Override
+                    public void onResult(ArrayList<BikeNetworkInfo> networks) {
+                        if (networks.size() != 0 && !isFinishing()) {
+                            //Arbitrary use the first location of the list
+                            BikeNetworkLocation currentNetworkLocation = networks.get(0).getLocation();
+                            double bikeNetworkLatitude = currentNetworkLocation.getLatitude();
+                            double bikeNetworkLongitude = currentNetworkLocation.getLongitude();
+                            mapController.setZoom(13);
+                            mapController.setCenter(new GeoPoint(bikeNetworkLatitude, bikeNetworkLongitude));
+                        }
+                    }
+                });
             }
         }
 
@@ -329,10 +343,8 @@ public class MapActivity extends Activity implements MapEventsReceiver, Activity
         }
     }
 
-    private Marker createStationMarker(Station station) {
-        GeoPoint stationLocation = new GeoPoint((int) (station.getLatitude() * 1000000),
-                (int) (station.getLongitude() * 1000000));
-        Marker marker = new Marker(map);
+    private void bindStationMarker(Marker marker, Station station) {
+        GeoPoint stationLocation = new GeoPoint(station.getLatitude(), station.getLongitude());
         marker.setRelatedObject(station);
         marker.setInfoWindow(stationMarkerInfoWindow);
         marker.setPosition(stationLocation);
@@ -341,30 +353,11 @@ public class MapActivity extends Activity implements MapEventsReceiver, Activity
         marker.setSnippet(String.valueOf(station.getFreeBikes())); // free bikes
         if (station.getEmptySlots() != -1) {
             marker.setSubDescription(String.valueOf(station.getEmptySlots())); // empty slots
-        }
-
-        /* Marker icon */
-        int emptySlots = station.getEmptySlots();
-        int freeBikes = station.getFreeBikes();
-
-        if ((emptySlots == 0 && freeBikes == 0) || station.getStatus() == StationStatus.CLOSED) {
-            marker.setIcon(getResources().getDrawable(R.drawable.ic_station_marker_unavailable));
         } else {
-            double ratio = (double) freeBikes / (double) (freeBikes + emptySlots);
-            if (freeBikes == 0) {
-                marker.setIcon(getResources().getDrawable(R.drawable.ic_station_marker0));
-            } else if (freeBikes >= 1 && ratio <= 0.3) {
-                marker.setIcon(getResources().getDrawable(R.drawable.ic_station_marker25));
-            } else if (ratio > 0.3 && ratio < 0.7) {
-                marker.setIcon(getResources().getDrawable(R.drawable.ic_station_marker50));
-            } else if (ratio >= 0.7 && emptySlots >= 1) {
-                marker.setIcon(getResources().getDrawable(R.drawable.ic_station_marker75));
-            } else if (emptySlots == 0 || emptySlots == -1) {
-                marker.setIcon(getResources().getDrawable(R.drawable.ic_station_marker100));
-            }
+            marker.setSubDescription(null);
         }
 
-        return marker;
+        marker.setIcon(MarkerIconCache.getInstance(this).getStationIcon(station));
     }
 
     private class StationMarkerInfoWindow extends MarkerInfoWindow {
@@ -411,23 +404,13 @@ public class MapActivity extends Activity implements MapEventsReceiver, Activity
                 @Override
                 public void onClick(View view) {
                     Intent intent = new Intent(MapActivity.this, StationActivity.class);
-                    intent.putExtra(KEY_STATION, markerStation);
+                    intent.putExtra(StationActivity.EXTRA_STATION_ID, markerStation.getId());
                     startActivity(intent);
                 }
             });
         }
     }
 
-    public static Bitmap getBitmapFromVectorDrawable(Context context, int drawableId) {
-        Drawable drawable = ContextCompat.getDrawable(context, drawableId);
-        Bitmap bitmap = Bitmap.createBitmap(drawable.getIntrinsicWidth(),
-                drawable.getIntrinsicHeight(), Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bitmap);
-        drawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
-        drawable.draw(canvas);
-        return bitmap;
-    }
-
     private void setDBLastUpdateText(SharedPreferences settings) {
         TextView lastUpdate = (TextView) findViewById(R.id.mapDbLastUpdate);
         long dbLastUpdate = settings.getLong(PREF_KEY_DB_LAST_UPDATE, -1);
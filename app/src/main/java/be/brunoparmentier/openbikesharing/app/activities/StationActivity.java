@@ -59,11 +59,14 @@ import java.util.Locale;
 import java.util.TimeZone;
 
 import be.brunoparmentier.openbikesharing.app.R;
-import be.brunoparmentier.openbikesharing.app.db.StationsDataSource;
+import be.brunoparmentier.openbikesharing.app.db.AsyncDataSource;
+import be.brunoparmentier.openbikesharing.app.db.StationsRepository;
 import be.brunoparmentier.openbikesharing.app.models.Station;
 import be.brunoparmentier.openbikesharing.app.models.StationStatus;
+import be.brunoparmentier.openbikesharing.app.models.StationsSnapshot;
 import be.brunoparmentier.openbikesharing.app.widgets.StationsListAppWidgetProvider;
 
+import fr.fdesousa.bikesharinghub.map.MarkerIconCache;
 import fr.fdesousa.bikesharinghub.tilesource.CustomTileSource;
 
 public class StationActivity extends Activity {
@@ -73,17 +76,21 @@ public class StationActivity extends Activity {
     private static final String PREF_KEY_MAP_CACHE_MAX_SIZE = "pref_map_tiles_cache_max_size";
     private static final String PREF_KEY_MAP_CACHE_TRIM_SIZE = "pref_map_tiles_cache_trim_size";
     private static final String PREF_KEY_MAP_LAYER = "pref_map_layer";
-    private static final String KEY_STATION = "station";
+    public static final String EXTRA_STATION_ID = "station_id";
     private static final String MAP_LAYER_MAPNIK = "mapnik";
     private static final String MAP_LAYER_CYCLEMAP = "cyclemap";
     private static final String MAP_LAYER_OSMPUBLICTRANSPORT = "osmpublictransport";
 
     private SharedPreferences settings;
+    private String stationId;
+    /* null until found in the stations snapshot or the database */
     private Station station;
     private MapView map;
     private IMapController mapController;
     private MenuItem favStar;
-    private StationsDataSource stationsDataSource;
+    /* null until read from the database */
+    private Boolean favorite;
+    private AsyncDataSource asyncDataSource;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -91,11 +98,20 @@ public class StationActivity extends Activity {
         setContentView(R.layout.activity_station);
         getActionBar().setDisplayHomeAsUpEnabled(true);
 
-        stationsDataSource = new StationsDataSource(this);
+        asyncDataSource = AsyncDataSource.getInstance(this);
 
         settings = PreferenceManager.getDefaultSharedPreferences(this);
 
-        station = (Station) getIntent().getSerializableExtra(KEY_STATION);
+        stationId = getIntent().getStringExtra(EXTRA_STATION_ID);
+        asyncDataSource.isFavoriteStation(stationId, new AsyncDataSource.Callback<Boolean>() {
+            @Override
+            public void onResult(Boolean isFavorite) {
+                if (favorite == null) {
+                    favorite = isFavorite;
+                    updateFavStar();
+                }
+            }
+        });
 
         final Context context = getApplicationContext();
         long systemCacheMaxBytes = 1024 * 1024 * Long.valueOf(settings.getString(PREF_KEY_MAP_CACHE_MAX_SIZE, "100"));
@@ -105,8 +121,6 @@ public class StationActivity extends Activity {
         Configuration.getInstance().load(context, PreferenceManager.getDefaultSharedPreferences(context));
 
         map = (MapView) findViewById(R.id.mapView);
-        final GeoPoint stationLocation = new GeoPoint((int) (station.getLatitude() * 1000000),
-                (int) (station.getLongitude() * 1000000));
 
         try {
             CacheManager mCacheManager = new CacheManager(map);
@@ -168,6 +182,36 @@ public class StationActivity extends Activity {
 
         map.setMultiTouchControls(true);
 
+        map.getOverlays().add(new CopyrightOverlay(context));
+
+        /* the latest counts of the station, from memory when the stations are loaded */
+        StationsSnapshot snapshot = StationsRepository.getInstance(this).getSnapshot();
+        Station cachedStation = snapshot != null ? snapshot.getStation(stationId) : null;
+        if (cachedStation != null) {
+            showStation(cachedStation);
+        } else {
+            asyncDataSource.getStation(stationId, new AsyncDataSource.Callback<Station>() {
+                @Override
+                public void onResult(Station result) {
+                    if (isFinishing()) {
+                        return;
+                    }
+                    if (result == null) {
+                        Log.e(TAG, "Station " + stationId + " not found");
+                        finish();
+                        return;
+                    }
+                    showStation(result);
+                }
+            });
+        }
+    }
+
+    private void showStation(Station station) {
+        this.station = station;
+        final GeoPoint stationLocation = new GeoPoint((int) (station.getLatitude() * 1000000),
+                (int) (station.getLongitude() * 1000000));
+
         /* Station marker */
         Marker marker = new Marker(map);
         marker.setPosition(stationLocation);
@@ -179,29 +223,9 @@ public class StationActivity extends Activity {
             }
         });
 
-        /* Marker icon */
-        int emptySlots = station.getEmptySlots();
-        int freeBikes = station.getFreeBikes();
-
-        if ((emptySlots == 0 && freeBikes == 0) || station.getStatus() == StationStatus.CLOSED) {
-            marker.setIcon(getResources().getDrawable(R.drawable.ic_station_marker_unavailable));
-        } else {
-            double ratio = (double) freeBikes / (double) (freeBikes + emptySlots);
-            if (freeBikes == 0) {
-                marker.setIcon(getResources().getDrawable(R.drawable.ic_station_marker0));
-            } else if (freeBikes >= 1 && ratio <= 0.3) {
-                marker.setIcon(getResources().getDrawable(R.drawable.ic_station_marker25));
-            } else if (ratio > 0.3 && ratio < 0.7) {
-                marker.setIcon(getResources().getDrawable(R.drawable.ic_station_marker50));
-            } else if (ratio >= 0.7 && emptySlots >= 1) {
-                marker.setIcon(getResources().getDrawable(R.drawable.ic_station_marker75));
-            } else if (emptySlots == 0 || emptySlots == -1) {
-                marker.setIcon(getResources().getDrawable(R.drawable.ic_station_marker100));
-            }
-        }
+        marker.setIcon(MarkerIconCache.getInstance(this).getStationIcon(station));
 
         map.getOverlays().add(marker);
-        map.getOverlays().add(new CopyrightOverlay(context));
 
         TextView stationName = (TextView) findViewById(R.id.stationName);
         TextView stationEmptySlots = (TextView) findViewById(R.id.stationEmptySlots);
@@ -276,10 +300,11 @@ public class StationActivity extends Activity {
             stationEBikesValue.setVisibility(View.VISIBLE);
             stationEBikesValue.setText(String.valueOf(ebikes));
             regularBikesLogo.setImageResource(R.drawable.ic_regular_bike);
-            stationFreeBikes.setText(String.valueOf(freeBikes - ebikes));   //display regular bikes only
+            stationFreeBikes.setText(String.valueOf(station.getFreeBikes() - ebikes));   //display regular bikes only
         }
 
         mapController.setCenter(stationLocation);
+        map.invalidate();
     }
 
     private void setLastUpdateText(String rawLastUpdateISO8601) {
@@ -320,11 +345,7 @@ public class StationActivity extends Activity {
         getMenuInflater().inflate(R.menu.station, menu);
 
         favStar = menu.findItem(R.id.action_favorite);
-        if (isFavorite()) {
-            favStar.setIcon(R.drawable.ic_menu_favorite);
-        } else {
-            favStar.setIcon(R.drawable.ic_menu_favorite_outline);
-        }
+        updateFavStar();
         return true;
     }
 
@@ -333,6 +354,9 @@ public class StationActivity extends Activity {
         int id = item.getItemId();
         switch (id) {
             case R.id.action_directions:
+                if (station == null) {
+                    return true;
+                }
                 Intent intent = new Intent(Intent.ACTION_VIEW, getStationLocationUri());
                 PackageManager packageManager = getPackageManager();
                 List<ResolveInfo> activities = packageManager.queryIntentActivities(intent, 0);
@@ -344,7 +368,9 @@ public class StationActivity extends Activity {
                 }
                 return true;
             case R.id.action_favorite:
-                setFavorite(!isFavorite());
+                if (favorite != null) {
+                    setFavorite(!favorite);
+                }
                 return true;
             case android.R.id.home:
                 finish();
@@ -358,28 +384,41 @@ public class StationActivity extends Activity {
         return Uri.parse("geo:" + station.getLatitude() + "," + station.getLongitude());
     }
 
-    private boolean isFavorite() {
-        return stationsDataSource.isFavoriteStation(station.getId());
+    private void updateFavStar() {
+        if (favStar == null) {
+            return;
+        }
+        /* the star can only be toggled once the favorite state is known */
+        favStar.setEnabled(favorite != null);
+        if (favorite != null && favorite) {
+            favStar.setIcon(R.drawable.ic_menu_favorite);
+        } else {
+            favStar.setIcon(R.drawable.ic_menu_favorite_outline);
+        }
     }
 
     private void setFavorite(boolean favorite) {
+        this.favorite = favorite;
+        updateFavStar();
         if (favorite) {
-            stationsDataSource.addFavoriteStation(station.getId());
-            favStar.setIcon(R.drawable.ic_menu_favorite);
             Toast.makeText(StationActivity.this,
                     getString(R.string.station_added_to_favorites), Toast.LENGTH_SHORT).show();
         } else {
-            stationsDataSource.removeFavoriteStation(station.getId());
-            favStar.setIcon(R.drawable.ic_menu_favorite_outline);
             Toast.makeText(StationActivity.this,
                     getString(R.string.stations_removed_from_favorites), Toast.LENGTH_SHORT).show();
         }
 
-        /* Refresh widget with new favorite */
-        Intent refreshWidgetIntent = new Intent(getApplicationContext(),
-                StationsListAppWidgetProvider.class);
-        refreshWidgetIntent.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
-        refreshWidgetIntent.putExtra(StationsListAppWidgetProvider.EXTRA_REFRESH_LIST_ONLY, true);
-        sendBroadcast(refreshWidgetIntent);
+        final Context context = getApplicationContext();
+        asyncDataSource.setFavoriteStation(stationId, favorite, new AsyncDataSource.Callback<Void>() {
+            @Override
+            public void onResult(Void result) {
+                /* Refresh widget with new favorite */
+                Intent refreshWidgetIntent = new Intent(context,
+                        StationsListAppWidgetProvider.class);
+                refreshWidgetIntent.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
+                refreshWidgetIntent.putExtra(StationsListAppWidgetProvider.EXTRA_REFRESH_LIST_ONLY, true);
+                context.sendBroadcast(refreshWidgetIntent);
+            }
+        });
     }
 }
@@ -26,16 +26,14 @@ import android.app.ActionBar;
 import android.app.AlertDialog;
 import android.app.FragmentTransaction;
 import android.app.SearchManager;
-import android.appwidget.AppWidgetManager;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
-import android.database.MatrixCursor;
+import android.database.Cursor;
 import android.location.Location;
 import android.location.LocationManager;
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
 import android.support.v4.app.ActivityCompat;
@@ -51,55 +49,45 @@ import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.ViewGroup;
+import android.widget.FilterQueryProvider;
 import android.widget.SearchView;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.lang.IndexOutOfBoundsException;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.text.DateFormat;
-import java.text.ParseException;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 
 import be.brunoparmentier.openbikesharing.app.R;
 import be.brunoparmentier.openbikesharing.app.adapters.SearchStationAdapter;
+import be.brunoparmentier.openbikesharing.app.db.AsyncDataSource;
+import be.brunoparmentier.openbikesharing.app.db.NetworkColorCache;
 import be.brunoparmentier.openbikesharing.app.db.StationsDataSource;
-import be.brunoparmentier.openbikesharing.app.db.NetworksDataSource;
+import be.brunoparmentier.openbikesharing.app.db.StationsRepository;
 import be.brunoparmentier.openbikesharing.app.fragments.StationsListFragment;
 import be.brunoparmentier.openbikesharing.app.models.BikeNetwork;
 import be.brunoparmentier.openbikesharing.app.models.BikeNetworkInfo;
 import be.brunoparmentier.openbikesharing.app.models.BikeNetworkLocation;
 import be.brunoparmentier.openbikesharing.app.models.Station;
-import be.brunoparmentier.openbikesharing.app.parsers.BikeNetworkParser;
-import be.brunoparmentier.openbikesharing.app.widgets.StationsListAppWidgetProvider;
+import be.brunoparmentier.openbikesharing.app.models.StationTable;
+import be.brunoparmentier.openbikesharing.app.models.StationsSnapshot;
+
+import fr.fdesousa.bikesharinghub.index.StationsGridIndex;
+import fr.fdesousa.bikesharinghub.index.StationsSearchIndex;
+import fr.fdesousa.bikesharinghub.network.StationsRefreshManager;
 
 
 public class StationsListActivity extends FragmentActivity implements ActionBar.TabListener, ActivityCompat.OnRequestPermissionsResultCallback {
     private static final String TAG = StationsListActivity.class.getSimpleName();
 
-    private static final String DEFAULT_API_URL = "https://api.citybik.es/v2/";
-    private static final String PREF_KEY_API_URL = "pref_api_url";
     private static final String PREF_KEY_NETWORK_ID = "network-id";
     private static final String PREF_KEY_NETWORK_NAME = "network-name";
     private static final String PREF_KEY_NETWORK_CITY = "network-city";
     private static final String PREF_KEY_NETWORK_LATITUDE = "network-latitude";
     private static final String PREF_KEY_NETWORK_LONGITUDE = "network-longitude";
     private static final String PREF_KEY_FAV_STATIONS = "fav-stations";
-    private static final String PREF_KEY_STRIP_ID_STATION = "pref_strip_id_station";
     private static final String PREF_KEY_DB_LAST_UPDATE = "db_last_update";
     private static final String PREF_KEY_DEFAULT_TAB = "pref_default_tab";
 
@@ -109,19 +97,32 @@ public class StationsListActivity extends FragmentActivity implements ActionBar.
     private static final String KEY_NEARBY_STATIONS = "nearbyStations";
     private static final String KEY_NETWORK_ID = "network-id";
 
+    private static final double NEARBY_RADIUS = 1000; // meters
+    private static final int SEARCH_SUGGESTIONS_LIMIT = 50;
+
     private static final String[] REQUEST_LOC_LIST = {Manifest.permission.ACCESS_FINE_LOCATION};
     private static final int REQUEST_LOC_CODE = 1;
 
     protected static final int PICK_NETWORK_REQUEST = 1;
 
     private BikeNetwork bikeNetwork;
-    private ArrayList<Station> stations;
-    private ArrayList<Station> favStations;
+    private List<Station> stations;
+    private List<Station> favStations;
+    /* version of the stations snapshot shown, -1 while showing downloaded stations */
+    private long shownSnapshotVersion = -1;
     private ArrayList<Station> nearbyStations;
+    private StationsGridIndex stationsIndex;
+    private List<Station> indexedStations;
+    private StationsSearchIndex stationsSearchIndex;
+    private List<Station> searchIndexedStations;
+    private SearchStationAdapter searchStationAdapter;
     private StationsDataSource stationsDataSource;
-    private NetworksDataSource networksDataSource;
+    private AsyncDataSource asyncDataSource;
+    private StationsRepository stationsRepository;
 
-    private JSONDownloadTask jsonDownloadTask;
+    private StationsRefreshManager refreshManager;
+    private StationsRefreshListener stationsRefreshListener;
+    private boolean hasDownloaded = false;
 
     private SharedPreferences settings;
 
@@ -182,9 +183,11 @@ public class StationsListActivity extends FragmentActivity implements ActionBar.
         });
 
         stationsDataSource = new StationsDataSource(this);
-        networksDataSource = new NetworksDataSource(this);
-        stations = stationsDataSource.getStations();
-        favStations = stationsDataSource.getFavoriteStations();
+        asyncDataSource = AsyncDataSource.getInstance(this);
+        stationsRepository = StationsRepository.getInstance(this);
+        refreshManager = StationsRefreshManager.getInstance(this);
+        stations = new ArrayList<>();
+        favStations = new ArrayList<>();
         nearbyStations = new ArrayList<>();
 
         tabsPagerAdapter = new TabsPagerAdapter(getSupportFragmentManager());
@@ -206,17 +209,33 @@ public class StationsListActivity extends FragmentActivity implements ActionBar.
         if(settings.contains(PREF_KEY_NETWORK_ID)) {
             upgradeAppSinceVersion25();
         }
-        boolean firstRun = false;
-        try {
-            firstRun = networksDataSource.getNetworksId().size() == 0;
-        } catch (IndexOutOfBoundsException e) {}
         setDBLastUpdateText();
+        /* queued before the stations, so that rows are first shown with their network colors */
+        NetworkColorCache.getInstance(this).load();
+        loadStoredStations();
 
-        if (firstRun) {
-            FragmentManager fm = getSupportFragmentManager();
-            WelcomeDialogFragment.getInstance().show(fm, "fragment_welcome");
-        } else {
-            executeDownloadTask();
+        asyncDataSource.getNetworksId(new AsyncDataSource.Callback<ArrayList<String>>() {
+            @Override
+            public void onResult(ArrayList<String> networksId) {
+                if (isFinishing()) {
+                    return;
+                }
+                if (networksId.isEmpty()) {
+                    FragmentManager fm = getSupportFragmentManager();
+                    WelcomeDialogFragment.getInstance().show(fm, "fragment_welcome");
+                } else {
+                    executeDownloadTask();
+                }
+            }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (stationsRefreshListener != null) {
+            refreshManager.removeListener(stationsRefreshListener);
+            stationsRefreshListener = null;
         }
     }
 
@@ -240,20 +259,12 @@ public class StationsListActivity extends FragmentActivity implements ActionBar.
     protected void onResume() {
         super.onResume();
 
-        if ((jsonDownloadTask != null && jsonDownloadTask.getStatus() == AsyncTask.Status.FINISHED)) {
+        if (hasDownloaded && stationsRefreshListener == null) {
             long dbLastUpdate = settings.getLong(PREF_KEY_DB_LAST_UPDATE, -1);
             long currentTime = System.currentTimeMillis();
 
             /* Refresh list with latest data from database */
-            stations = stationsDataSource.getStations();
-            favStations = stationsDataSource.getFavoriteStations();
-            if (ContextCompat.checkSelfPermission(this,
-                    Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
-                setNearbyStations(stations);
-            }
-            tabsPagerAdapter.updateAllStationsListFragment(stations);
-            tabsPagerAdapter.updateFavoriteStationsFragment(favStations);
-            tabsPagerAdapter.updateNearbyStationsFragment(nearbyStations);
+            loadStoredStations();
             setDBLastUpdateText();
 
             /* Update automatically if data is more than 10 min old */
@@ -263,6 +274,33 @@ public class StationsListActivity extends FragmentActivity implements ActionBar.
         }
     }
 
+    /* Show the stored stations once loaded, unless a refresh has started meanwhile */
+    private void loadStoredStations() {
+        stationsRepository.loadSnapshot(new AsyncDataSource.Callback<StationsSnapshot>() {
+            @Override
+            public void onResult(StationsSnapshot snapshot) {
+                if (isFinishing() || stationsRefreshListener != null
+                        || snapshot.getVersion() == shownSnapshotVersion) {
+                    return;
+                }
+                showSnapshot(snapshot);
+            }
+        });
+    }
+
+    private void showSnapshot(StationsSnapshot snapshot) {
+        shownSnapshotVersion = snapshot.getVersion();
+        stations = snapshot.getStations();
+        favStations = snapshot.getFavoriteStations();
+        if (ContextCompat.checkSelfPermission(StationsListActivity.this,
+                Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+            setNearbyStations(stations);
+        }
+        tabsPagerAdapter.updateAllStationsListFragment(stations);
+        tabsPagerAdapter.updateFavoriteStationsFragment(favStations);
+        tabsPagerAdapter.updateNearbyStationsFragment(nearbyStations);
+    }
+
     private void setDBLastUpdateText() {
         TextView lastUpdate = (TextView) findViewById(R.id.dbLastUpdate);
         long dbLastUpdate = settings.getLong(PREF_KEY_DB_LAST_UPDATE, -1);
@@ -282,17 +320,33 @@ public class StationsListActivity extends FragmentActivity implements ActionBar.
         this.optionsMenu = menu;
         getMenuInflater().inflate(R.menu.stations_list, menu);
 
-        if (jsonDownloadTask != null &&
-                (jsonDownloadTask.getStatus() == AsyncTask.Status.PENDING
-                || jsonDownloadTask.getStatus() == AsyncTask.Status.RUNNING)) {
+        if (stationsRefreshListener != null) {
             setRefreshActionButtonState(true);
-
         }
 
         SearchManager manager = (SearchManager) getSystemService(Context.SEARCH_SERVICE);
 
         searchView = (SearchView) menu.findItem(R.id.action_search).getActionView();
         searchView.setSearchableInfo(manager.getSearchableInfo(getComponentName()));
+        searchStationAdapter = new SearchStationAdapter(this);
+        final SearchStationAdapter adapter = searchStationAdapter;
+        asyncDataSource.hasFullTextSearch(new AsyncDataSource.Callback<Boolean>() {
+            @Override
+            public void onResult(Boolean hasFullTextSearch) {
+                if (!hasFullTextSearch) {
+                    return;
+                }
+                /* suggestions are queried by the search view on a background thread */
+                adapter.setFilterQueryProvider(new FilterQueryProvider() {
+                    @Override
+                    public Cursor runQuery(CharSequence constraint) {
+                        return constraint == null ? null : stationsDataSource.searchStations(
+                                constraint.toString(), SEARCH_SUGGESTIONS_LIMIT);
+                    }
+                });
+            }
+        });
+        searchView.setSuggestionsAdapter(searchStationAdapter);
         searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
 
             @Override
@@ -356,26 +410,15 @@ public class StationsListActivity extends FragmentActivity implements ActionBar.
     }
 
     private void loadData(String query) {
-        ArrayList<Station> queryStations = new ArrayList<>();
-        String[] columns = new String[]{"_id", "text"};
-        Object[] temp = new Object[]{0, "default"};
-
-        MatrixCursor cursor = new MatrixCursor(columns);
-
-        if (stations != null) {
-            for (int i = 0; i < stations.size(); i++) {
-                Station station = stations.get(i);
-                if (station.getName().toLowerCase().contains(query.toLowerCase())) {
-                    temp[0] = i;
-                    temp[1] = station.getName();
-                    cursor.addRow(temp);
-                    queryStations.add(station);
-                }
-            }
+        if (stations == null || searchStationAdapter.getFilterQueryProvider() != null) {
+            return;
         }
-
-        searchView.setSuggestionsAdapter(new SearchStationAdapter(this, cursor, queryStations));
-
+        /* the index is built once per data refresh */
+        if (stationsSearchIndex == null || searchIndexedStations != stations) {
+            stationsSearchIndex = new StationsSearchIndex(stations);
+            searchIndexedStations = stations;
+        }
+        searchStationAdapter.setStations(stationsSearchIndex.search(query));
     }
 
     private void setRefreshActionButtonState(final boolean refreshing) {
@@ -392,21 +435,20 @@ public class StationsListActivity extends FragmentActivity implements ActionBar.
     }
     //put here the code to update the bikes data
     private void executeDownloadTask(){
-        ArrayList<String> networksId = networksDataSource.getNetworksId();
-        ArrayList<String> networksUrlList = new ArrayList<String>();
-        for (String id : networksId) {
-            String stationUrl = settings.getString(PREF_KEY_API_URL, DEFAULT_API_URL)
-                        + "networks/" + id;
-            networksUrlList.add(stationUrl);
+        /* A refresh already in progress is joined rather than started again, the networks it
+         * has already downloaded are then given to the new listener */
+        if (stationsRefreshListener != null) {
+            refreshManager.removeListener(stationsRefreshListener);
         }
-        String[] networksUrl = networksUrlList.toArray(new String[networksUrlList.size()]);
-        jsonDownloadTask = new JSONDownloadTask();
-        jsonDownloadTask.execute(networksUrl);
+        stationsRefreshListener = new StationsRefreshListener();
+        refreshManager.refreshStations(stationsRefreshListener);
+
+        setRefreshActionButtonState(true);
+        hasDownloaded = true;
     }
 
 
     private void setNearbyStations(List<Station> stations) {
-        final double radius = 0.01;
         nearbyStations = new ArrayList<>();
         LocationManager locationManager =
                 (LocationManager) this.getSystemService(Context.LOCATION_SERVICE);
@@ -414,31 +456,13 @@ public class StationsListActivity extends FragmentActivity implements ActionBar.
             final Location userLocation = locationManager
                     .getLastKnownLocation(LocationManager.NETWORK_PROVIDER);
             if (userLocation != null) {
-                for (Station station : stations) {
-                    if ((station.getLatitude() > userLocation.getLatitude() - radius)
-                            && (station.getLatitude() < userLocation.getLatitude() + radius)
-                            && (station.getLongitude() > userLocation.getLongitude() - radius)
-                            && (station.getLongitude() < userLocation.getLongitude() + radius)) {
-                        nearbyStations.add(station);
-                    }
+                /* the index is built once per data refresh */
+                if (stationsIndex == null || indexedStations != stations) {
+                    stationsIndex = new StationsGridIndex(stations);
+                    indexedStations = stations;
                 }
-                Collections.sort(nearbyStations, new Comparator<Station>() {
-
-                    @Override
-                    public int compare(Station station1, Station station2) {
-                        float[] result1 = new float[3];
-                        Location.distanceBetween(userLocation.getLatitude(), userLocation.getLongitude(),
-                                station1.getLatitude(), station1.getLongitude(), result1);
-                        Float distance1 = result1[0];
-
-                        float[] result2 = new float[3];
-                        Location.distanceBetween(userLocation.getLatitude(), userLocation.getLongitude(),
-                                station2.getLatitude(), station2.getLongitude(), result2);
-                        Float distance2 = result2[0];
-
-                        return distance1.compareTo(distance2);
-                    }
-                });
+                nearbyStations.addAll(stationsIndex.findWithinRadius(userLocation.getLatitude(),
+                        userLocation.getLongitude(), NEARBY_RADIUS));
             } else {
                 nearbyStationsFragment.setEmptyView(R.string.location_not_found);
                 // TODO: listen for location
@@ -446,118 +470,96 @@ public class StationsListActivity extends FragmentActivity implements ActionBar.
         }
     }
 
-    private class JSONDownloadTask extends AsyncTask<String, Void, String> {
+    /**
+     * The shown stations, sorted by name, with those of the given network replaced by its
+     * downloaded ones. Stations of the snapshot are only built if they are kept.
+     */
+    private static ArrayList<Station> mergeNetworkStations(List<Station> shown, BikeNetwork bikeNetwork) {
+        ArrayList<Station> downloaded = new ArrayList<>(bikeNetwork.getStations());
+        Collections.sort(downloaded);
+        String networkId = bikeNetwork.getId();
+        StationTable.Rows rows = shown instanceof StationTable.Rows ? (StationTable.Rows) shown : null;
+
+        ArrayList<Station> merged = new ArrayList<>(shown.size() + downloaded.size());
+        int next = 0;
+        for (int i = 0; i < shown.size(); i++) {
+            String stationNetworkId = rows != null
+                    ? rows.getTable().getNetworkId(rows.getRow(i)) : shown.get(i).getNetworkId();
+            if (networkId != null && networkId.equals(stationNetworkId)) {
+                continue;
+            }
+            Station station = shown.get(i);
+            while (next < downloaded.size() && downloaded.get(next).compareTo(station) <= 0) {
+                merged.add(downloaded.get(next++));
+            }
+            merged.add(station);
+        }
+        while (next < downloaded.size()) {
+            merged.add(downloaded.get(next++));
+        }
+        return merged;
+    }
 
-        Exception error;
+    private class StationsRefreshListener implements StationsRefreshManager.Listener {
 
         @Override
-        protected void onPreExecute() {
-            setRefreshActionButtonState(true);
+        public void onNetworkRefreshed(BikeNetwork bikeNetwork) {
+            if (stationsRefreshListener != this || isFinishing()) {
+                return;
+            }
+            /* publish partial results as networks arrive, the stations of networks not
+             * downloaded yet, not modified or failing staying shown */
+            stationsIndex = null;
+            stationsSearchIndex = null;
+            shownSnapshotVersion = -1;
+            stations = mergeNetworkStations(stations != null ? stations : new ArrayList<Station>(),
+                    bikeNetwork);
+            tabsPagerAdapter.updateAllStationsListFragment(stations);
         }
 
         @Override
-        protected String doInBackground(String... urls) {
-            if (urls.length == 0 || urls[0].isEmpty()) {
-                error = new Exception("No URL to fetch");
-                return null;
-            }
-            JSONArray networksArray = new JSONArray();
-            for (int i=0; i<urls.length; i++) {
-                try {
-                    StringBuilder response = new StringBuilder();
-                    URL url = new URL(urls[i]);
-                    HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-                    if (conn.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                        BufferedReader input = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                        String strLine;
-                        while ((strLine = input.readLine()) != null) {
-                            response.append(strLine);
-                        }
-                        input.close();
-                    }
-                    networksArray.put(new JSONObject(response.toString()));
-                } catch (Exception e) {
-                    Log.e(TAG, urls[i] + ": " + e.getClass().getSimpleName() + " (" + e.getMessage() + ")");
-                }
-            }
-            if(networksArray.length() == 0) {
-                error = new Exception("Unable to fetch any response");
+        public void onRefreshFinished(List<Station> refreshedStations,
+                                      int refreshedNetworks, int failedNetworks) {
+            if (stationsRefreshListener != this || isFinishing()) {
+                return;
             }
-            return networksArray.toString();
-        }
+            stationsRefreshListener = null;
 
-        @Override
-        protected void onPostExecute(final String result) {
-            if (error != null) {
-                Log.d(TAG, error.getMessage());
+            if (refreshedNetworks == 0) {
+                Log.d(TAG, "Unable to fetch any response");
                 Toast.makeText(getApplicationContext(),
                         getApplicationContext().getResources().getString(R.string.connection_error),
                         Toast.LENGTH_SHORT).show();
-                setRefreshActionButtonState(false);
-                refreshLayout.setRefreshing(false);
             } else {
-                /* parse result */
-                boolean stripId = settings.getBoolean(PREF_KEY_STRIP_ID_STATION, false);
-                stations = null;
-                try {
-                    JSONArray rawNetworks = new JSONArray(result);
-
-                    for (int i = 0; i < rawNetworks.length(); i++) {
-                        JSONObject rawNetwork = rawNetworks.getJSONObject(i);
-                        try{
-                            BikeNetworkParser bikeNetworkParser = new BikeNetworkParser(rawNetwork.toString(), stripId);
-
-                            BikeNetwork bikeNetwork = bikeNetworkParser.getNetwork();
-                            if(stations == null) {
-                                stations = bikeNetwork.getStations();
-                            } else {
-                                stations.addAll(bikeNetwork.getStations());
-                            }
-                        } catch (ParseException e) {
-                            Log.e(TAG, "Error retreiving data of network " + (i+1) + " : " + e.getMessage());
-                        }
-                    }
-                } catch (JSONException e) {
-                        Log.e(TAG, e.getMessage());
-                        Toast.makeText(StationsListActivity.this,
-                                R.string.json_error, Toast.LENGTH_LONG).show();
-                }
-                if(stations != null) {
-                    Collections.sort(stations);
-                    stationsDataSource.storeStations(stations);
-                    favStations = stationsDataSource.getFavoriteStations();
-
-                    settings.edit()
-                            .putLong(PREF_KEY_DB_LAST_UPDATE, System.currentTimeMillis())
-                            .apply();
-                    setDBLastUpdateText();
-
-                    if (ContextCompat.checkSelfPermission(StationsListActivity.this,
-                        Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
-                        setNearbyStations(stations);
-                    } else if(nearbyStationsFragment.getUserVisibleHint()) {
-                        //Ask permission only if nearbyStationsFragment is currently shown
-                        ActivityCompat.requestPermissions(StationsListActivity.this,
-                            REQUEST_LOC_LIST, REQUEST_LOC_CODE);
-                    }
+                stationsIndex = null;
+                stationsSearchIndex = null;
+                /* the refresh has replaced the snapshot with the stored stations */
+                StationsSnapshot snapshot = stationsRepository.getSnapshot();
+                shownSnapshotVersion = snapshot.getVersion();
+                stations = refreshedStations;
+                favStations = snapshot.getFavoriteStations();
+                setDBLastUpdateText();
 
-                    tabsPagerAdapter.updateAllStationsListFragment(stations);
-                    tabsPagerAdapter.updateFavoriteStationsFragment(favStations);
-                    tabsPagerAdapter.updateNearbyStationsFragment(nearbyStations);
+                if (ContextCompat.checkSelfPermission(StationsListActivity.this,
+                    Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+                    setNearbyStations(stations);
+                } else if(nearbyStationsFragment.getUserVisibleHint()) {
+                    //Ask permission only if nearbyStationsFragment is currently shown
+                    ActivityCompat.requestPermissions(StationsListActivity.this,
+                        REQUEST_LOC_LIST, REQUEST_LOC_CODE);
+                }
 
-                    Intent refreshWidgetIntent = new Intent(getApplicationContext(),
-                            StationsListAppWidgetProvider.class);
-                    refreshWidgetIntent.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
-                    refreshWidgetIntent.putExtra(StationsListAppWidgetProvider.EXTRA_REFRESH_LIST_ONLY, true);
-                    sendBroadcast(refreshWidgetIntent);
+                tabsPagerAdapter.updateAllStationsListFragment(stations);
+                tabsPagerAdapter.updateFavoriteStationsFragment(favStations);
+                tabsPagerAdapter.updateNearbyStationsFragment(nearbyStations);
 
-                } else {
+                if (failedNetworks > 0) {
                     Toast.makeText(StationsListActivity.this,
                             R.string.json_error, Toast.LENGTH_LONG).show();
                 }
-                setRefreshActionButtonState(false);
-                refreshLayout.setRefreshing(false);
             }
+            setRefreshActionButtonState(false);
+            refreshLayout.setRefreshing(false);
         }
     }
 
@@ -616,21 +618,21 @@ public class StationsListActivity extends FragmentActivity implements ActionBar.
             return frag;
         }
 
-        public void updateAllStationsListFragment(ArrayList<Station> stations) {
+        public void updateAllStationsListFragment(List<Station> stations) {
             if(fragTags[2] != null) {
                 StationsListFragment frgt = (StationsListFragment) getSupportFragmentManager().findFragmentByTag(fragTags[2]);
                 frgt.updateStationsList(stations);
             }
         }
 
-        public void updateFavoriteStationsFragment(ArrayList<Station> stations) {
+        public void updateFavoriteStationsFragment(List<Station> stations) {
             if(fragTags[1] != null) {
                 StationsListFragment frgt = (StationsListFragment) getSupportFragmentManager().findFragmentByTag(fragTags[1]);
                 frgt.updateStationsList(stations);
             }
         }
 
-        public void updateNearbyStationsFragment(ArrayList<Station> stations) {
+        public void updateNearbyStationsFragment(List<Station> stations) {
             if(fragTags[0] != null) {
                 StationsListFragment frgt = (StationsListFragment) getSupportFragmentManager().findFragmentByTag(fragTags[0]);
                 frgt.updateStationsList(stations);
@@ -651,7 +653,7 @@ public class StationsListActivity extends FragmentActivity implements ActionBar.
                         PREF_KEY_NETWORK_LONGITUDE, 0));
         BikeNetworkLocation loc = new BikeNetworkLocation(latitude, longitude, city, "");
         BikeNetworkInfo savedNetwork = new BikeNetworkInfo(id, name, "", loc);
-        networksDataSource.storeNetworks(new ArrayList<BikeNetworkInfo>(Arrays.asList(savedNetwork)));
+        asyncDataSource.storeNetworks(new ArrayList<BikeNetworkInfo>(Arrays.asList(savedNetwork)), null);
 
         //Delete obsolete shared preferences
         settings.edit().remove(PREF_KEY_NETWORK_ID).apply();
@@ -28,13 +28,13 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
-import android.widget.ListView;
 import android.widget.TextView;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 import be.brunoparmentier.openbikesharing.app.R;
-import be.brunoparmentier.openbikesharing.app.db.NetworksDataSource;
 import be.brunoparmentier.openbikesharing.app.models.BikeNetworkInfo;
 
 /**
@@ -42,16 +42,23 @@ import be.brunoparmentier.openbikesharing.app.models.BikeNetworkInfo;
  */
 public class BikeNetworksListAdapter extends ArrayAdapter<BikeNetworkInfo> {
 
-    private ArrayList<String> savedNetworksList;
-    private ArrayList<String> cannotFetchNetworksList;
+    private Set<String> cannotFetchNetworks;
 
     public BikeNetworksListAdapter(Context context, int resource, int textViewResourceId,
-        ArrayList<BikeNetworkInfo> networks, ArrayList<String> cannotFetch) {
-        super(context, resource, textViewResourceId, networks);
+        Set<String> cannotFetch) {
+        super(context, resource, textViewResourceId, new ArrayList<BikeNetworkInfo>());
+        cannotFetchNetworks = cannotFetch;
+    }
 
-        NetworksDataSource networksDataSource = new NetworksDataSource(context);
-        savedNetworksList = networksDataSource.getNetworksId();
-        cannotFetchNetworksList = cannotFetch;
+    /**
+     * Replace the displayed networks, keeping the views of the list.
+     */
+    public void setNetworks(List<BikeNetworkInfo> networks, Set<String> cannotFetch) {
+        setNotifyOnChange(false);
+        clear();
+        addAll(networks);
+        cannotFetchNetworks = cannotFetch;
+        notifyDataSetChanged();
     }
 
     @Override
@@ -70,11 +77,8 @@ public class BikeNetworksListAdapter extends ArrayAdapter<BikeNetworkInfo> {
             TextView network_title = (TextView) v.findViewById(R.id.network_title);
 
             network_title.setText(network.getLocationName() + "\n" + network.getName());
-            if (savedNetworksList.contains(network.getId())) {
-                ((ListView)parent).setItemChecked(position, true);
-            }
-            if (cannotFetchNetworksList != null &&
-                cannotFetchNetworksList.contains(network.getId())) {
+            if (cannotFetchNetworks != null &&
+                cannotFetchNetworks.contains(network.getId())) {
                 // put unreachable networks in greyscale
                 network_title.setTextColor(Color.GRAY);
                 network_title.setTypeface(null, Typeface.ITALIC);
@@ -23,6 +23,7 @@ package be.brunoparmentier.openbikesharing.app.adapters;
 import android.content.Context;
 import android.content.Intent;
 import android.database.Cursor;
+import android.database.MatrixCursor;
 import android.graphics.Color;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -30,35 +31,49 @@ import android.view.ViewGroup;
 import android.widget.CursorAdapter;
 import android.widget.TextView;
 
-import java.util.ArrayList;
+import java.util.List;
 
 import be.brunoparmentier.openbikesharing.app.models.Station;
 import be.brunoparmentier.openbikesharing.app.activities.StationActivity;
 
 /**
- * Cursor adapter to display search results in a dropdown list
+ * Cursor adapter to display search results in a dropdown list. Results come either from the
+ * full text search of the database, through a FilterQueryProvider, or from stations searched
+ * in memory.
  */
 public class SearchStationAdapter extends CursorAdapter {
+    private static final String[] COLUMNS = new String[]{"_id", "id", "name"};
 
-    private ArrayList<Station> stations;
+    public SearchStationAdapter(Context context) {
+        super(context, null, false);
+    }
 
-    public SearchStationAdapter(Context context, Cursor cursor, ArrayList<Station> stations) {
-        super(context, cursor, false);
-        this.stations = stations;
+    /* The adapter is kept while typing, only its cursor is swapped */
+    public void setStations(List<Station> stations) {
+        MatrixCursor cursor = new MatrixCursor(COLUMNS, stations.size());
+        Object[] row = new Object[3];
+        for (int i = 0; i < stations.size(); i++) {
+            row[0] = i;
+            row[1] = stations.get(i).getId();
+            row[2] = stations.get(i).getName();
+            cursor.addRow(row);
+        }
+        changeCursor(cursor);
     }
 
     @Override
     public void bindView(View view, final Context context, final Cursor cursor) {
-        final int position = cursor.getPosition();
+        final String stationId = cursor.getString(1);
         TextView textView = (TextView) view.findViewById(android.R.id.text1);
-        textView.setText(stations.get(position).getName());
+        textView.setText(cursor.getString(2));
         textView.setTextColor(context.getResources().getColor(android.R.color.secondary_text_light));
         view.setBackgroundColor(Color.rgb(243, 243, 243)); // background_holo_light
         view.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
+                /* the station is looked up by StationActivity */
                 Intent intent = new Intent(context, StationActivity.class);
-                intent.putExtra("station", stations.get(position));
+                intent.putExtra(StationActivity.EXTRA_STATION_ID, stationId);
                 context.startActivity(intent);
             }
         });
@@ -71,4 +86,4 @@ public class SearchStationAdapter extends CursorAdapter {
         return inflater.inflate(android.R.layout.simple_dropdown_item_1line, parent, false);
     }
 
-}
\ No newline at end of file
+}
@@ -24,106 +24,324 @@ package be.brunoparmentier.openbikesharing.app.adapters;
 import android.content.Context;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.AbsListView;
-import android.widget.ArrayAdapter;
 import android.widget.ImageView;
 import android.widget.TextView;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import be.brunoparmentier.openbikesharing.app.R;
-import be.brunoparmentier.openbikesharing.app.db.NetworksDataSource;
+import be.brunoparmentier.openbikesharing.app.db.NetworkColorCache;
 import be.brunoparmentier.openbikesharing.app.models.Station;
 import be.brunoparmentier.openbikesharing.app.models.StationStatus;
+import be.brunoparmentier.openbikesharing.app.models.StationTable;
 
 /**
  * Define a list of stations with their title, number of bikes and empty slots.
+ * New lists are compared with the displayed one in the background, so that a refresh only
+ * rebinds the stations whose counts changed. Lists of the stations snapshot are compared and
+ * bound from the columns of its table, without building their stations.
  */
-public class StationsListAdapter extends ArrayAdapter<Station> {
+public class StationsListAdapter extends RecyclerView.Adapter<StationsListAdapter.ViewHolder> {
+    /* lists are diffed one at a time, off the main thread */
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
 
-    private HashMap<String, String> colorMap;
+    public interface OnStationClickListener {
+        void onStationClick(Station station);
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private NetworkColorCache networkColorCache;
+    private OnStationClickListener onStationClickListener;
+    private StationsView stations = new StationsView(new ArrayList<Station>());
+    /* number of lists submitted, a diff is only applied if no list was submitted since */
+    private int submittedLists;
 
-    public StationsListAdapter(Context context, int resource, ArrayList<Station> stations) {
-        super(context, resource, stations);
-        NetworksDataSource networksDataSource = new NetworksDataSource(context);
-        colorMap = networksDataSource.getNetworksColor();
+    /* rows bound before the network colors were loaded are bound again once they are */
+    private final NetworkColorCache.Listener colorsListener = new NetworkColorCache.Listener() {
+        @Override
+        public void onColorsLoaded() {
+            notifyItemRangeChanged(0, getItemCount());
+        }
+    };
+
+    public StationsListAdapter(Context context, OnStationClickListener listener) {
+        setHasStableIds(true);
+        networkColorCache = NetworkColorCache.getInstance(context);
+        onStationClickListener = listener;
     }
 
-    @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
-        View v = convertView;
-
-        if (v == null) {
-            LayoutInflater vi;
-            vi = LayoutInflater.from(getContext());
-            v = vi.inflate(R.layout.station_list_item, parent, false);
-        }
-
-        final Station station = getItem(position);
-
-        if (station != null) {
-            TextView stationNameTitle = (TextView) v.findViewById(R.id.stationNameTitle);
-            TextView freeBikesValue = (TextView) v.findViewById(R.id.freeBikesValue);
-            ImageView regularBikesLogo = (ImageView) v.findViewById(R.id.freeBikesLogo);
-            TextView freeEBikesValue = (TextView) v.findViewById(R.id.freeEBikesValue);
-            ImageView eBikesLogo = (ImageView) v.findViewById(R.id.freeEBikesLogo);
-            TextView emptySlotsValue = (TextView) v.findViewById(R.id.emptySlotsValue);
-            StationStatus stationStatus = station.getStatus();
-
-            if (stationNameTitle != null) {
-                stationNameTitle.setText(station.getName());
-
-                if (stationStatus == StationStatus.CLOSED) {
-                    stationNameTitle.setPaintFlags(stationNameTitle.getPaintFlags() | Paint.STRIKE_THRU_TEXT_FLAG);
-                } else {
-                    stationNameTitle.setPaintFlags(stationNameTitle.getPaintFlags() & (~Paint.STRIKE_THRU_TEXT_FLAG));
-                }
+    /**
+     * Show the given stations once compared with the displayed ones. Lists other than those of
+     * the stations snapshot are copied, as they may still change.
+     */
+    public void submitList(List<Station> list) {
+        final StationsView oldStations = stations;
+        final StationsView newStations = new StationsView(list);
+        final int generation = ++submittedLists;
+
+        if (oldStations.size() == 0 || newStations.size() == 0) {
+            stations = newStations;
+            if (oldStations.size() > 0) {
+                notifyItemRangeRemoved(0, oldStations.size());
+            } else if (newStations.size() > 0) {
+                notifyItemRangeInserted(0, newStations.size());
             }
+            return;
+        }
+
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult result =
+                        DiffUtil.calculateDiff(new StationsDiff(oldStations, newStations));
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == submittedLists) {
+                            stations = newStations;
+                            result.dispatchUpdatesTo(StationsListAdapter.this);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        networkColorCache.addListener(colorsListener);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        networkColorCache.removeListener(colorsListener);
+    }
+
+    @Override
+    public int getItemCount() {
+        return stations.size();
+    }
 
-            if (freeBikesValue != null) {
-                int bikes = station.getFreeBikes();
-                if(station.getEBikes() != null && regularBikesLogo != null
-                && eBikesLogo != null && freeEBikesValue != null ) {
-                    int ebikes = station.getEBikes();
-                    freeBikesValue.setText(String.valueOf(bikes-ebikes));
-                    regularBikesLogo.setImageResource(R.drawable.ic_regular_bike);
-                    eBikesLogo.setVisibility(View.VISIBLE);
-                    freeEBikesValue.setVisibility(View.VISIBLE);
-                    freeEBikesValue.setText(String.valueOf(ebikes));
-                } else {
-                    freeBikesValue.setText(String.valueOf(bikes));
-                    regularBikesLogo.setImageResource(R.drawable.ic_bike);
-                    eBikesLogo.setVisibility(View.GONE);
-                    freeEBikesValue.setVisibility(View.GONE);
-                }
+    @Override
+    public long getItemId(int position) {
+        return stableId(stations.getId(position));
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View v = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.station_list_item, parent, false);
+        return new ViewHolder(v);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        StationsView stationsView = stations;
+        StationStatus stationStatus = stationsView.getStatus(position);
+
+        holder.stationNameTitle.setText(stationsView.getName(position));
+        if (stationStatus == StationStatus.CLOSED) {
+            holder.stationNameTitle.setPaintFlags(holder.stationNameTitle.getPaintFlags() | Paint.STRIKE_THRU_TEXT_FLAG);
+        } else {
+            holder.stationNameTitle.setPaintFlags(holder.stationNameTitle.getPaintFlags() & (~Paint.STRIKE_THRU_TEXT_FLAG));
+        }
+
+        int bikes = stationsView.getFreeBikes(position);
+        Integer stationEBikes = stationsView.getEBikes(position);
+        if (stationEBikes != null) {
+            int ebikes = stationEBikes;
+            holder.freeBikesValue.setText(String.valueOf(bikes - ebikes));
+            holder.regularBikesLogo.setImageResource(R.drawable.ic_regular_bike);
+            holder.eBikesLogo.setVisibility(View.VISIBLE);
+            holder.freeEBikesValue.setVisibility(View.VISIBLE);
+            holder.freeEBikesValue.setText(String.valueOf(ebikes));
+        } else {
+            holder.freeBikesValue.setText(String.valueOf(bikes));
+            holder.regularBikesLogo.setImageResource(R.drawable.ic_bike);
+            holder.eBikesLogo.setVisibility(View.GONE);
+            holder.freeEBikesValue.setVisibility(View.GONE);
+        }
+
+        int emptySlots = stationsView.getEmptySlots(position);
+        if (emptySlots == -1) {
+            holder.emptySlotsLogo.setVisibility(View.GONE);
+            holder.emptySlotsValue.setVisibility(View.GONE);
+        } else {
+            holder.emptySlotsLogo.setVisibility(View.VISIBLE);
+            holder.emptySlotsValue.setVisibility(View.VISIBLE);
+            holder.emptySlotsValue.setText(String.valueOf(emptySlots));
+        }
+
+        //Use the color's network as background ; or white if null
+        holder.itemView.setBackgroundColor(
+                networkColorCache.getColor(stationsView.getNetworkId(position), Color.WHITE));
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the station id: station ids are strings, unique across networks as
+     * they are the primary key of the stored stations. String.hashCode is only 32 bits, so
+     * among thousands of stations two ids are far more likely to collide and give two rows the
+     * same stable id; ruling collisions out would need a map of every id instead.
+     */
+    private static long stableId(String stationId) {
+        return fnv1a(0xcbf29ce484222325L, stationId);
+    }
+
+    private static long fnv1a(long hash, String s) {
+        if (s != null) {
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                hash = (hash ^ (c & 0xff)) * 0x100000001b3L;
+                hash = (hash ^ (c >>> 8)) * 0x100000001b3L;
             }
+        }
+        return hash;
+    }
+
+    public class ViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
+        final TextView stationNameTitle;
+        final TextView freeBikesValue;
+        final ImageView regularBikesLogo;
+        final TextView freeEBikesValue;
+        final ImageView eBikesLogo;
+        final TextView emptySlotsValue;
+        final ImageView emptySlotsLogo;
 
-            if (emptySlotsValue != null) {
-                int emptySlots = station.getEmptySlots();
-                ImageView emptySlotsLogo = (ImageView) v.findViewById(R.id.emptySlotsLogo);
-                if (emptySlots == -1) {
-                    emptySlotsLogo.setVisibility(View.GONE);
-                    emptySlotsValue.setVisibility(View.GONE);
-                } else {
-                    emptySlotsLogo.setVisibility(View.VISIBLE);
-                    emptySlotsValue.setVisibility(View.VISIBLE);
-                    emptySlotsValue.setText(String.valueOf(emptySlots));
-                }
+        ViewHolder(View v) {
+            super(v);
+            stationNameTitle = (TextView) v.findViewById(R.id.stationNameTitle);
+            freeBikesValue = (TextView) v.findViewById(R.id.freeBikesValue);
+            regularBikesLogo = (ImageView) v.findViewById(R.id.freeBikesLogo);
+            freeEBikesValue = (TextView) v.findViewById(R.id.freeEBikesValue);
+            eBikesLogo = (ImageView) v.findViewById(R.id.freeEBikesLogo);
+            emptySlotsValue = (TextView) v.findViewById(R.id.emptySlotsValue);
+            emptySlotsLogo = (ImageView) v.findViewById(R.id.emptySlotsLogo);
+            v.setOnClickListener(this);
+        }
+
+        @Override
+        public void onClick(View v) {
+            int position = getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && onStationClickListener != null) {
+                onStationClickListener.onStationClick(stations.getStation(position));
             }
+        }
+    }
+
+    /**
+     * Read-only stations to display, read from the table columns for the lists of the
+     * snapshot rather than through stations built on each access.
+     */
+    private static final class StationsView {
+        /* set for lists of the snapshot */
+        private final StationTable table;
+        private final StationTable.Rows rows;
+        /* set for any other list */
+        private final List<Station> list;
 
-            //Use the color's network as background ; or white if null
-            String colorNetwork = colorMap.get(station.getNetworkId());
-            if(colorNetwork == null) {
-                v.setBackgroundColor(Color.WHITE);
+        StationsView(List<Station> stations) {
+            if (stations instanceof StationTable.Rows) {
+                rows = (StationTable.Rows) stations;
+                table = rows.getTable();
+                list = null;
             } else {
-                v.setBackgroundColor(Color.parseColor(colorNetwork));
+                rows = null;
+                table = null;
+                list = new ArrayList<>(stations);
             }
         }
 
-        return v;
+        int size() {
+            return rows != null ? rows.size() : list.size();
+        }
+
+        String getId(int position) {
+            return rows != null ? table.getId(rows.getRow(position)) : list.get(position).getId();
+        }
+
+        String getNetworkId(int position) {
+            return rows != null ? table.getNetworkId(rows.getRow(position))
+                    : list.get(position).getNetworkId();
+        }
+
+        String getName(int position) {
+            return rows != null ? table.getName(rows.getRow(position)) : list.get(position).getName();
+        }
+
+        int getFreeBikes(int position) {
+            return rows != null ? table.getFreeBikes(rows.getRow(position))
+                    : list.get(position).getFreeBikes();
+        }
+
+        int getEmptySlots(int position) {
+            return rows != null ? table.getEmptySlots(rows.getRow(position))
+                    : list.get(position).getEmptySlots();
+        }
+
+        Integer getEBikes(int position) {
+            return rows != null ? table.getEBikes(rows.getRow(position))
+                    : list.get(position).getEBikes();
+        }
+
+        StationStatus getStatus(int position) {
+            return rows != null ? table.getStatus(rows.getRow(position))
+                    : list.get(position).getStatus();
+        }
+
+        Station getStation(int position) {
+            return rows != null ? rows.get(position) : list.get(position);
+        }
+    }
+
+    private static final class StationsDiff extends DiffUtil.Callback {
+        private final StationsView oldStations;
+        private final StationsView newStations;
+
+        StationsDiff(StationsView oldStations, StationsView newStations) {
+            this.oldStations = oldStations;
+            this.newStations = newStations;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldStations.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newStations.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return same(oldStations.getId(oldPosition), newStations.getId(newPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return oldStations.getFreeBikes(oldPosition) == newStations.getFreeBikes(newPosition)
+                    && oldStations.getEmptySlots(oldPosition) == newStations.getEmptySlots(newPosition)
+                    && same(oldStations.getEBikes(oldPosition), newStations.getEBikes(newPosition))
+                    && oldStations.getStatus(oldPosition) == newStations.getStatus(newPosition)
+                    && same(oldStations.getName(oldPosition), newStations.getName(newPosition));
+        }
+
+        private static boolean same(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
     }
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.brunoparmentier.openbikesharing.app.db;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import be.brunoparmentier.openbikesharing.app.models.BikeNetworkInfo;
+import be.brunoparmentier.openbikesharing.app.models.Station;
+import be.brunoparmentier.openbikesharing.app.models.StationsSnapshot;
+
+/**
+ * Asynchronous access to the stations and networks data sources for the user interface.
+ * Reads and writes run one after the other on a background thread, in the order they were
+ * requested, and callbacks are called on the main thread. A read requested after a write
+ * therefore sees its changes. All the stations are read through the StationsRepository.
+ * Downloaded data is stored on the same thread, so that it is the only database writer.
+ */
+public class AsyncDataSource {
+    private static AsyncDataSource instance;
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /* Database work to run on the background thread */
+    public interface Query<T> {
+        T run();
+    }
+
+    private final Context context;
+    private final ExecutorService executor;
+    private final Handler mainHandler;
+    private final StationsDataSource stationsDataSource;
+    private final NetworksDataSource networksDataSource;
+
+    public static synchronized AsyncDataSource getInstance(Context context) {
+        if (instance == null) {
+            instance = new AsyncDataSource(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private AsyncDataSource(Context context) {
+        this.context = context;
+        executor = Executors.newSingleThreadExecutor();
+        mainHandler = new Handler(Looper.getMainLooper());
+        stationsDataSource = new StationsDataSource(context);
+        networksDataSource = new NetworksDataSource(context);
+    }
+
+    /**
+     * Run a query in the background, then give its result to the callback, if any.
+     */
+    public <T> void execute(final Query<T> query, final Callback<T> callback) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final T result = query.run();
+                if (callback != null) {
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onResult(result);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Run database work in the background, after the queries and tasks already requested.
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    public void getStation(final String id, Callback<Station> callback) {
+        execute(new Query<Station>() {
+            @Override
+            public Station run() {
+                StationsSnapshot snapshot = StationsRepository.getInstance(context).getSnapshot();
+                return snapshot != null ? snapshot.getStation(id) : stationsDataSource.getStation(id);
+            }
+        }, callback);
+    }
+
+    public void getStationsInBounds(final double minLatitude, final double minLongitude,
+                                    final double maxLatitude, final double maxLongitude,
+                                    final double centerLatitude, final double centerLongitude,
+                                    final int limit, Callback<ArrayList<Station>> callback) {
+        execute(new Query<ArrayList<Station>>() {
+            @Override
+            public ArrayList<Station> run() {
+                return stationsDataSource.getStationsInBounds(minLatitude, minLongitude,
+                        maxLatitude, maxLongitude, centerLatitude, centerLongitude, limit);
+            }
+        }, callback);
+    }
+
+    public void hasFullTextSearch(Callback<Boolean> callback) {
+        execute(new Query<Boolean>() {
+            @Override
+            public Boolean run() {
+                return stationsDataSource.hasFullTextSearch();
+            }
+        }, callback);
+    }
+
+    public void isFavoriteStation(final String id, Callback<Boolean> callback) {
+        execute(new Query<Boolean>() {
+            @Override
+            public Boolean run() {
+                return stationsDataSource.isFavoriteStation(id);
+            }
+        }, callback);
+    }
+
+    public void setFavoriteStation(final String id, final boolean favorite, Callback<Void> callback) {
+        execute(new Query<Void>() {
+            @Override
+            public Void run() {
+                if (favorite) {
+                    stationsDataSource.addFavoriteStation(id);
+                } else {
+                    stationsDataSource.removeFavoriteStation(id);
+                }
+                StationsRepository.getInstance(context).reloadFavorites();
+                return null;
+            }
+        }, callback);
+    }
+
+    public void getNetworksId(Callback<ArrayList<String>> callback) {
+        execute(new Query<ArrayList<String>>() {
+            @Override
+            public ArrayList<String> run() {
+                return networksDataSource.getNetworksId();
+            }
+        }, callback);
+    }
+
+    /* The saved networks */
+    public void getNetworkInfoList(Callback<ArrayList<BikeNetworkInfo>> callback) {
+        execute(new Query<ArrayList<BikeNetworkInfo>>() {
+            @Override
+            public ArrayList<BikeNetworkInfo> run() {
+                return networksDataSource.getNetworkInfoList();
+            }
+        }, callback);
+    }
+
+    public void storeNetworks(final ArrayList<BikeNetworkInfo> bikeNetworks, Callback<Void> callback) {
+        execute(new Query<Void>() {
+            @Override
+            public Void run() {
+                networksDataSource.storeNetworks(bikeNetworks);
+                return null;
+            }
+        }, callback);
+    }
+}
@@ -23,16 +23,21 @@ package be.brunoparmentier.openbikesharing.app.db;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.preference.PreferenceManager;
+import android.util.Log;
 
 public class DatabaseHelper extends SQLiteOpenHelper {
+    private static final String TAG = DatabaseHelper.class.getSimpleName();
     private static DatabaseHelper instance;
     private Context mContext;
 
     private static final String DB_NAME = "openbikesharing.sqlite";
-    private static final int DB_VERSION = 3;
+    private static final int DB_VERSION = 9;
 
     public static final String STATIONS_TABLE_NAME = "stations";
     public static final String STATIONS_COLUMN_ID = "id";
@@ -48,6 +53,20 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     public static final String STATIONS_COLUMN_STATUS = "status";
     public static final String STATIONS_COLUMN_EBIKES = "ebikes";
     public static final String STATIONS_COLUMN_NETWORK = "network_id";
+    /* hashes of the values compared on each refresh, see StationsDataSource.storeStations() */
+    public static final String STATIONS_COLUMN_DETAILS_HASH = "details_hash";
+    public static final String STATIONS_COLUMN_COUNTS_HASH = "counts_hash";
+
+    public static final String STATIONS_RTREE_TABLE_NAME = "stations_rtree";
+    public static final String STATIONS_RTREE_COLUMN_ID = "id";
+    public static final String STATIONS_RTREE_COLUMN_MIN_LATITUDE = "min_latitude";
+    public static final String STATIONS_RTREE_COLUMN_MAX_LATITUDE = "max_latitude";
+    public static final String STATIONS_RTREE_COLUMN_MIN_LONGITUDE = "min_longitude";
+    public static final String STATIONS_RTREE_COLUMN_MAX_LONGITUDE = "max_longitude";
+    private static final String STATIONS_LOCATION_INDEX_NAME = "stations_location";
+
+    /* full text index of the stations, its docid is the rowid of the station */
+    public static final String STATIONS_FTS_TABLE_NAME = "stations_fts";
 
     public static final String FAV_STATIONS_TABLE_NAME = "fav_stations";
     public static final String FAV_STATIONS_COLUMN_ID = "id";
@@ -62,8 +81,59 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     public static final String NETWORKS_COLUMN_COUNTRY = "country";
     public static final String NETWORKS_COLUMN_COLOR = "color";
 
+    /* every network of the API, with the same columns as the networks table but the color */
+    public static final String NETWORKS_CATALOGUE_TABLE_NAME = "networks_catalogue";
+
+    public static final String HTTP_CACHE_TABLE_NAME = "http_cache";
+    public static final String HTTP_CACHE_COLUMN_URL = "url";
+    public static final String HTTP_CACHE_COLUMN_ETAG = "etag";
+    public static final String HTTP_CACHE_COLUMN_LAST_MODIFIED = "last_modified";
+
     private static final String PREF_KEY_NETWORK_ID = "network-id";
 
+    /* Coordinates are stored as REAL and counts as INTEGER, bound with their native types */
+    private static final String CREATE_STATIONS_TABLE = "CREATE TABLE " + STATIONS_TABLE_NAME + "("
+                + STATIONS_COLUMN_ID + " TEXT PRIMARY KEY,"
+                + STATIONS_COLUMN_NAME + " TEXT NOT NULL,"
+                + STATIONS_COLUMN_LAST_UPDATE + " TEXT NOT NULL,"
+                + STATIONS_COLUMN_LATITUDE + " REAL NOT NULL,"
+                + STATIONS_COLUMN_LONGITUDE + " REAL NOT NULL,"
+                + STATIONS_COLUMN_FREE_BIKES + " INTEGER NOT NULL,"
+                + STATIONS_COLUMN_EMPTY_SLOTS + " INTEGER NOT NULL,"
+                + STATIONS_COLUMN_ADDRESS + " TEXT,"
+                + STATIONS_COLUMN_BANKING + " INTEGER,"
+                + STATIONS_COLUMN_BONUS + " INTEGER,"
+                + STATIONS_COLUMN_STATUS + " TEXT,"
+                + STATIONS_COLUMN_EBIKES + " INTEGER, \""
+                + STATIONS_COLUMN_NETWORK + "\" TEXT)";
+    private static final String CREATE_NETWORKS_TABLE = "CREATE TABLE " + NETWORKS_TABLE_NAME + "("
+                + NETWORKS_COLUMN_ID + " TEXT PRIMARY KEY,"
+                + NETWORKS_COLUMN_NAME + " TEXT NOT NULL,"
+                + NETWORKS_COLUMN_COMPANY + " TEXT NOT NULL,"
+                + NETWORKS_COLUMN_LATITUDE + " REAL NOT NULL,"
+                + NETWORKS_COLUMN_LONGITUDE + " REAL NOT NULL,"
+                + NETWORKS_COLUMN_CITY + " TEXT NOT NULL,"
+                + NETWORKS_COLUMN_COUNTRY + " TEXT NOT NULL,"
+                + NETWORKS_COLUMN_COLOR + " TEXT)";
+
+    private static final String CREATE_NETWORKS_CATALOGUE_TABLE = "CREATE TABLE "
+                + NETWORKS_CATALOGUE_TABLE_NAME + "("
+                + NETWORKS_COLUMN_ID + " TEXT PRIMARY KEY,"
+                + NETWORKS_COLUMN_NAME + " TEXT NOT NULL,"
+                + NETWORKS_COLUMN_COMPANY + " TEXT NOT NULL,"
+                + NETWORKS_COLUMN_LATITUDE + " REAL NOT NULL,"
+                + NETWORKS_COLUMN_LONGITUDE + " REAL NOT NULL,"
+                + NETWORKS_COLUMN_CITY + " TEXT NOT NULL,"
+                + NETWORKS_COLUMN_COUNTRY + " TEXT NOT NULL)";
+
+    private static final String CREATE_HTTP_CACHE_TABLE = "CREATE TABLE " + HTTP_CACHE_TABLE_NAME + "("
+                + HTTP_CACHE_COLUMN_URL + " TEXT PRIMARY KEY,"
+                + HTTP_CACHE_COLUMN_ETAG + " TEXT,"
+                + HTTP_CACHE_COLUMN_LAST_MODIFIED + " TEXT)";
+
+    private Boolean hasStationsRTree;
+    private Boolean hasStationsFullTextSearch;
+
     public static DatabaseHelper getInstance(Context context) {
         if (instance == null) {
             instance = new DatabaseHelper(context.getApplicationContext());
@@ -79,34 +149,16 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     @Override
     public void onCreate(SQLiteDatabase db) {
 
-        db.execSQL("CREATE TABLE " + STATIONS_TABLE_NAME + "("
-                + STATIONS_COLUMN_ID + " TEXT PRIMARY KEY,"
-                + STATIONS_COLUMN_NAME + " TEXT NOT NULL,"
-                + STATIONS_COLUMN_LAST_UPDATE + " TEXT NOT NULL,"
-                + STATIONS_COLUMN_LATITUDE + " NUMERIC NOT NULL,"
-                + STATIONS_COLUMN_LONGITUDE + " NUMERIC NOT NULL,"
-                + STATIONS_COLUMN_FREE_BIKES + " INTEGER NOT NULL,"
-                + STATIONS_COLUMN_EMPTY_SLOTS + " INTEGER NOT NULL,"
-                + STATIONS_COLUMN_ADDRESS + " TEXT,"
-                + STATIONS_COLUMN_BANKING + " INTEGER,"
-                + STATIONS_COLUMN_BONUS + " INTEGER,"
-                + STATIONS_COLUMN_STATUS + " TEXT,"
-                + STATIONS_COLUMN_EBIKES + " INTEGER, \""
-                + STATIONS_COLUMN_NETWORK + "\" TEXT)"
-        );
+        db.execSQL(CREATE_STATIONS_TABLE);
+        addStationsHashes(db);
         db.execSQL("CREATE TABLE " + FAV_STATIONS_TABLE_NAME + "("
                 + FAV_STATIONS_COLUMN_ID + " TEXT PRIMARY KEY)"
         );
-        db.execSQL("CREATE TABLE " + NETWORKS_TABLE_NAME + "("
-                + NETWORKS_COLUMN_ID + " TEXT PRIMARY KEY,"
-                + NETWORKS_COLUMN_NAME + " TEXT NOT NULL,"
-                + NETWORKS_COLUMN_COMPANY + " TEXT NOT NULL,"
-                + NETWORKS_COLUMN_LATITUDE + " NUMERIC NOT NULL,"
-                + NETWORKS_COLUMN_LONGITUDE + " NUMERIC NOT NULL,"
-                + NETWORKS_COLUMN_CITY + " TEXT NOT NULL,"
-                + NETWORKS_COLUMN_COUNTRY + " TEXT NOT NULL,"
-                + NETWORKS_COLUMN_COLOR + " TEXT)"
-        );
+        db.execSQL(CREATE_NETWORKS_TABLE);
+        createStationsLocationIndex(db);
+        db.execSQL(CREATE_HTTP_CACHE_TABLE);
+        db.execSQL(CREATE_NETWORKS_CATALOGUE_TABLE);
+        createStationsFullTextIndex(db);
     }
 
     @Override
@@ -137,6 +189,210 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                     + STATIONS_COLUMN_NETWORK + "' = '" + id + "'");
             }
         }
+        if (oldVersion < 4) {
+            upgradeToNativeTypes(db);
+        }
+        if (oldVersion < 5) {
+            createStationsLocationIndex(db);
+        }
+        if (oldVersion < 6) {
+            db.execSQL(CREATE_HTTP_CACHE_TABLE);
+        }
+        if (oldVersion < 7) {
+            db.execSQL(CREATE_NETWORKS_CATALOGUE_TABLE);
+        }
+        if (oldVersion < 8) {
+            createStationsFullTextIndex(db);
+        }
+        if (oldVersion < 9) {
+            addStationsHashes(db);
+        }
+    }
+
+    /**
+     * Whether the stations are mirrored in an R*Tree, which depends on the SQLite build of the
+     * device. Otherwise, bounding box queries use a plain index on the coordinates.
+     */
+    public synchronized boolean hasStationsRTree() {
+        if (hasStationsRTree == null) {
+            hasStationsRTree = hasTable(STATIONS_RTREE_TABLE_NAME);
+        }
+        return hasStationsRTree;
+    }
+
+    /**
+     * Whether station names and addresses are indexed for full text search, which needs an
+     * SQLite build with FTS4 and the unicode61 tokenizer to ignore case and accents.
+     */
+    public synchronized boolean hasStationsFullTextSearch() {
+        if (hasStationsFullTextSearch == null) {
+            hasStationsFullTextSearch = hasTable(STATIONS_FTS_TABLE_NAME);
+        }
+        return hasStationsFullTextSearch;
+    }
+
+    private boolean hasTable(String name) {
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT name FROM sqlite_master"
+                + " WHERE type = 'table' AND name = ?", new String[] { name });
+        try {
+            return cursor.getCount() > 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /* Added after the columns of CREATE_STATIONS_TABLE, which upgradeToNativeTypes() copies.
+     * Rows stored before have no hashes, and are updated on the next refresh. */
+    private void addStationsHashes(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + STATIONS_TABLE_NAME + " ADD COLUMN "
+                + STATIONS_COLUMN_DETAILS_HASH + " INTEGER");
+        db.execSQL("ALTER TABLE " + STATIONS_TABLE_NAME + " ADD COLUMN "
+                + STATIONS_COLUMN_COUNTS_HASH + " INTEGER");
+    }
+
+    /* Mirror the coordinates of the stations in an R*Tree kept in sync by triggers, so that
+     * every write done by StationsDataSource.storeStations() updates it too. */
+    private void createStationsLocationIndex(SQLiteDatabase db) {
+        try {
+            db.execSQL("CREATE VIRTUAL TABLE " + STATIONS_RTREE_TABLE_NAME + " USING rtree("
+                    + STATIONS_RTREE_COLUMN_ID + ", "
+                    + STATIONS_RTREE_COLUMN_MIN_LATITUDE + ", "
+                    + STATIONS_RTREE_COLUMN_MAX_LATITUDE + ", "
+                    + STATIONS_RTREE_COLUMN_MIN_LONGITUDE + ", "
+                    + STATIONS_RTREE_COLUMN_MAX_LONGITUDE + ")");
+        } catch (SQLiteException e) {
+            /* SQLite has been built without the R*Tree module on this device */
+            Log.w(TAG, "R*Tree not available, using an index on the coordinates: " + e.getMessage());
+            db.execSQL("CREATE INDEX " + STATIONS_LOCATION_INDEX_NAME + " ON " + STATIONS_TABLE_NAME
+                    + "(" + STATIONS_COLUMN_LATITUDE + ", " + STATIONS_COLUMN_LONGITUDE + ")");
+            return;
+        }
+
+        db.execSQL("INSERT INTO " + STATIONS_RTREE_TABLE_NAME + " SELECT rowid, "
+                + STATIONS_COLUMN_LATITUDE + ", " + STATIONS_COLUMN_LATITUDE + ", "
+                + STATIONS_COLUMN_LONGITUDE + ", " + STATIONS_COLUMN_LONGITUDE
+                + " FROM " + STATIONS_TABLE_NAME);
+        /* INSERT OR REPLACE deletes the previous row without firing the delete trigger */
+        db.execSQL("CREATE TRIGGER " + STATIONS_RTREE_TABLE_NAME + "_replace"
+                + " BEFORE INSERT ON " + STATIONS_TABLE_NAME + " BEGIN"
+                + " DELETE FROM " + STATIONS_RTREE_TABLE_NAME + " WHERE " + STATIONS_RTREE_COLUMN_ID
+                + " IN (SELECT rowid FROM " + STATIONS_TABLE_NAME
+                + " WHERE " + STATIONS_COLUMN_ID + " = new." + STATIONS_COLUMN_ID + ");"
+                + " END");
+        db.execSQL("CREATE TRIGGER " + STATIONS_RTREE_TABLE_NAME + "_insert"
+                + " AFTER INSERT ON " + STATIONS_TABLE_NAME + " BEGIN"
+                + " INSERT INTO " + STATIONS_RTREE_TABLE_NAME + " VALUES (new.rowid,"
+                + " new." + STATIONS_COLUMN_LATITUDE + ", new." + STATIONS_COLUMN_LATITUDE + ","
+                + " new." + STATIONS_COLUMN_LONGITUDE + ", new." + STATIONS_COLUMN_LONGITUDE + ");"
+                + " END");
+        db.execSQL("CREATE TRIGGER " + STATIONS_RTREE_TABLE_NAME + "_update"
+                + " AFTER UPDATE OF " + STATIONS_COLUMN_LATITUDE + ", " + STATIONS_COLUMN_LONGITUDE
+                + " ON " + STATIONS_TABLE_NAME + " BEGIN"
+                + " UPDATE " + STATIONS_RTREE_TABLE_NAME + " SET "
+                + STATIONS_RTREE_COLUMN_MIN_LATITUDE + " = new." + STATIONS_COLUMN_LATITUDE + ", "
+                + STATIONS_RTREE_COLUMN_MAX_LATITUDE + " = new." + STATIONS_COLUMN_LATITUDE + ", "
+                + STATIONS_RTREE_COLUMN_MIN_LONGITUDE + " = new." + STATIONS_COLUMN_LONGITUDE + ", "
+                + STATIONS_RTREE_COLUMN_MAX_LONGITUDE + " = new." + STATIONS_COLUMN_LONGITUDE
+                + " WHERE " + STATIONS_RTREE_COLUMN_ID + " = new.rowid;"
+                + " END");
+        db.execSQL("CREATE TRIGGER " + STATIONS_RTREE_TABLE_NAME + "_delete"
+                + " AFTER DELETE ON " + STATIONS_TABLE_NAME + " BEGIN"
+                + " DELETE FROM " + STATIONS_RTREE_TABLE_NAME
+                + " WHERE " + STATIONS_RTREE_COLUMN_ID + " = old.rowid;"
+                + " END");
+    }
+
+    /* Index the names and addresses of the stations in an FTS4 table kept in sync by triggers,
+     * like the R*Tree, so that it is updated inside the transaction of storeStations(). */
+    private void createStationsFullTextIndex(SQLiteDatabase db) {
+        try {
+            db.execSQL("CREATE VIRTUAL TABLE " + STATIONS_FTS_TABLE_NAME + " USING fts4("
+                    + STATIONS_COLUMN_NAME + ", " + STATIONS_COLUMN_ADDRESS + ", "
+                    + "tokenize=unicode61)");
+        } catch (SQLiteException e) {
+            /* stations are then searched in memory */
+            Log.w(TAG, "Full text search not available: " + e.getMessage());
+            return;
+        }
+
+        db.execSQL("INSERT INTO " + STATIONS_FTS_TABLE_NAME + "(docid, "
+                + STATIONS_COLUMN_NAME + ", " + STATIONS_COLUMN_ADDRESS + ") SELECT rowid, "
+                + STATIONS_COLUMN_NAME + ", " + STATIONS_COLUMN_ADDRESS
+                + " FROM " + STATIONS_TABLE_NAME);
+        /* INSERT OR REPLACE deletes the previous row without firing the delete trigger */
+        db.execSQL("CREATE TRIGGER " + STATIONS_FTS_TABLE_NAME + "_replace"
+                + " BEFORE INSERT ON " + STATIONS_TABLE_NAME + " BEGIN"
+                + " DELETE FROM " + STATIONS_FTS_TABLE_NAME + " WHERE docid"
+                + " IN (SELECT rowid FROM " + STATIONS_TABLE_NAME
+                + " WHERE " + STATIONS_COLUMN_ID + " = new." + STATIONS_COLUMN_ID + ");"
+                + " END");
+        db.execSQL("CREATE TRIGGER " + STATIONS_FTS_TABLE_NAME + "_insert"
+                + " AFTER INSERT ON " + STATIONS_TABLE_NAME + " BEGIN"
+                + " INSERT INTO " + STATIONS_FTS_TABLE_NAME + "(docid, "
+                + STATIONS_COLUMN_NAME + ", " + STATIONS_COLUMN_ADDRESS + ") VALUES (new.rowid,"
+                + " new." + STATIONS_COLUMN_NAME + ", new." + STATIONS_COLUMN_ADDRESS + ");"
+                + " END");
+        db.execSQL("CREATE TRIGGER " + STATIONS_FTS_TABLE_NAME + "_update"
+                + " AFTER UPDATE OF " + STATIONS_COLUMN_NAME + ", " + STATIONS_COLUMN_ADDRESS
+                + " ON " + STATIONS_TABLE_NAME + " BEGIN"
+                + " UPDATE " + STATIONS_FTS_TABLE_NAME + " SET "
+                + STATIONS_COLUMN_NAME + " = new." + STATIONS_COLUMN_NAME + ", "
+                + STATIONS_COLUMN_ADDRESS + " = new." + STATIONS_COLUMN_ADDRESS
+                + " WHERE docid = new.rowid;"
+                + " END");
+        db.execSQL("CREATE TRIGGER " + STATIONS_FTS_TABLE_NAME + "_delete"
+                + " AFTER DELETE ON " + STATIONS_TABLE_NAME + " BEGIN"
+                + " DELETE FROM " + STATIONS_FTS_TABLE_NAME + " WHERE docid = old.rowid;"
+                + " END");
+    }
+
+    /* Until version 3, station values were stored as text and network coordinates as the raw
+     * bits of the doubles. Rebuild both tables with REAL/INTEGER columns holding plain values. */
+    private void upgradeToNativeTypes(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + STATIONS_TABLE_NAME + " RENAME TO " + STATIONS_TABLE_NAME + "_old");
+        db.execSQL(CREATE_STATIONS_TABLE);
+        db.execSQL("INSERT INTO " + STATIONS_TABLE_NAME + " SELECT "
+                + STATIONS_COLUMN_ID + ", "
+                + STATIONS_COLUMN_NAME + ", "
+                + STATIONS_COLUMN_LAST_UPDATE + ", "
+                + "CAST(" + STATIONS_COLUMN_LATITUDE + " AS REAL), "
+                + "CAST(" + STATIONS_COLUMN_LONGITUDE + " AS REAL), "
+                + "CAST(" + STATIONS_COLUMN_FREE_BIKES + " AS INTEGER), "
+                + "CAST(" + STATIONS_COLUMN_EMPTY_SLOTS + " AS INTEGER), "
+                + STATIONS_COLUMN_ADDRESS + ", "
+                + STATIONS_COLUMN_BANKING + ", "
+                + STATIONS_COLUMN_BONUS + ", "
+                + STATIONS_COLUMN_STATUS + ", "
+                + "CAST(" + STATIONS_COLUMN_EBIKES + " AS INTEGER), \""
+                + STATIONS_COLUMN_NETWORK + "\""
+                + " FROM " + STATIONS_TABLE_NAME + "_old");
+        db.execSQL("DROP TABLE " + STATIONS_TABLE_NAME + "_old");
+
+        db.execSQL("ALTER TABLE " + NETWORKS_TABLE_NAME + " RENAME TO " + NETWORKS_TABLE_NAME + "_old");
+        db.execSQL(CREATE_NETWORKS_TABLE);
+        SQLiteStatement insertStatement = db.compileStatement("INSERT INTO " + NETWORKS_TABLE_NAME
+                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+        Cursor cursor = db.rawQuery("SELECT * FROM " + NETWORKS_TABLE_NAME + "_old", null);
+        try {
+            while (cursor.moveToNext()) {
+                insertStatement.clearBindings();
+                insertStatement.bindString(1, cursor.getString(0)); // id
+                insertStatement.bindString(2, cursor.getString(1)); // name
+                insertStatement.bindString(3, cursor.getString(2)); // company
+                insertStatement.bindDouble(4, Double.longBitsToDouble(cursor.getLong(3))); // latitude
+                insertStatement.bindDouble(5, Double.longBitsToDouble(cursor.getLong(4))); // longitude
+                insertStatement.bindString(6, cursor.getString(5)); // city
+                insertStatement.bindString(7, cursor.getString(6)); // country
+                if (!cursor.isNull(7)) {
+                    insertStatement.bindString(8, cursor.getString(7)); // color
+                }
+                insertStatement.executeInsert();
+            }
+        } finally {
+            cursor.close();
+            insertStatement.close();
+        }
+        db.execSQL("DROP TABLE " + NETWORKS_TABLE_NAME + "_old");
     }
 
 }
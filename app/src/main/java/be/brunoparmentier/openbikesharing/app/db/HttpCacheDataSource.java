@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.brunoparmentier.openbikesharing.app.db;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import fr.fdesousa.bikesharinghub.network.HttpFetcher;
+
+/**
+ * Validators (ETag and Last-Modified) of the last response stored for each URL. They must
+ * only be stored once the data of the response is in the database, as a later "not modified"
+ * response skips storing it.
+ */
+public class HttpCacheDataSource {
+    private DatabaseHelper dbHelper;
+
+    private static final String QUERY_VALIDATORS_BY_URL = "SELECT "
+                + DatabaseHelper.HTTP_CACHE_COLUMN_ETAG + ", "
+                + DatabaseHelper.HTTP_CACHE_COLUMN_LAST_MODIFIED
+                + " FROM " + DatabaseHelper.HTTP_CACHE_TABLE_NAME
+                + " WHERE " + DatabaseHelper.HTTP_CACHE_COLUMN_URL + " = ?";
+    private static final String SQL_INSERT_VALIDATORS = "INSERT OR REPLACE INTO "
+                + DatabaseHelper.HTTP_CACHE_TABLE_NAME + " ("
+                + DatabaseHelper.HTTP_CACHE_COLUMN_URL + ", "
+                + DatabaseHelper.HTTP_CACHE_COLUMN_ETAG + ", "
+                + DatabaseHelper.HTTP_CACHE_COLUMN_LAST_MODIFIED
+                + ") VALUES (?, ?, ?)";
+
+    public HttpCacheDataSource(Context context) {
+        dbHelper = DatabaseHelper.getInstance(context);
+    }
+
+    public HttpFetcher.Validators getValidators(String url) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.rawQuery(QUERY_VALIDATORS_BY_URL, new String[] { url });
+
+        try {
+            if (cursor.moveToFirst()) {
+                return new HttpFetcher.Validators(cursor.getString(0), cursor.getString(1));
+            }
+            return null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    public void storeValidators(String url, HttpFetcher.Validators validators) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        if (validators == null) {
+            db.delete(DatabaseHelper.HTTP_CACHE_TABLE_NAME,
+                    DatabaseHelper.HTTP_CACHE_COLUMN_URL + " = ?", new String[] { url });
+            return;
+        }
+        SQLiteStatement insertStatement = db.compileStatement(SQL_INSERT_VALIDATORS);
+        try {
+            insertStatement.bindString(1, url);
+            if (validators.getETag() != null) {
+                insertStatement.bindString(2, validators.getETag());
+            }
+            if (validators.getLastModified() != null) {
+                insertStatement.bindString(3, validators.getLastModified());
+            }
+            insertStatement.executeInsert();
+        } finally {
+            insertStatement.close();
+        }
+    }
+
+    /* Next requests download everything again, e.g. when stored data has to be rebuilt */
+    public void clear() {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.delete(DatabaseHelper.HTTP_CACHE_TABLE_NAME, null, null);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.brunoparmentier.openbikesharing.app.db;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Application wide cache of the colors of the saved networks, parsed once from the database.
+ * It is read on the main thread but only loaded on the database thread: until then, network
+ * colors are the default one, and listeners are told once they are loaded. It is loaded again
+ * whenever the saved networks are stored.
+ */
+public class NetworkColorCache {
+    private static final String TAG = NetworkColorCache.class.getSimpleName();
+
+    private static NetworkColorCache instance;
+
+    public interface Listener {
+        /* Called on the main thread once colors have been loaded or reloaded */
+        void onColorsLoaded();
+    }
+
+    private final Context context;
+    private final NetworksDataSource networksDataSource;
+    /* never modified once loaded, replaced as a whole */
+    private volatile HashMap<String, Integer> colors;
+    private boolean loadRequested;
+    private final Handler mainHandler;
+    /* only used on the main thread */
+    private final ArrayList<Listener> listeners = new ArrayList<>();
+
+    public static synchronized NetworkColorCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new NetworkColorCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private NetworkColorCache(Context context) {
+        this.context = context;
+        networksDataSource = new NetworksDataSource(context);
+        mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /* To be called on the main thread, e.g. to redraw views bound with the default color */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Color of a network, or the given default color if it has none or if colors are not
+     * loaded yet.
+     */
+    public int getColor(String networkId, int defaultColor) {
+        HashMap<String, Integer> colors = this.colors;
+        if (colors == null) {
+            load();
+            return defaultColor;
+        }
+        Integer color = colors.get(networkId);
+        return color == null ? defaultColor : color;
+    }
+
+    /**
+     * Load the colors on the database thread, unless already loaded or requested. Requested
+     * before the stations are read, they are loaded by the time the stations are shown.
+     */
+    public void load() {
+        synchronized (this) {
+            if (colors != null || loadRequested) {
+                return;
+            }
+            loadRequested = true;
+        }
+        AsyncDataSource.getInstance(context).execute(new AsyncDataSource.Query<Void>() {
+            @Override
+            public Void run() {
+                synchronized (NetworkColorCache.this) {
+                    if (colors == null) {
+                        reload();
+                    }
+                }
+                return null;
+            }
+        }, null);
+    }
+
+    /**
+     * Parse the colors again from the database, once networks have been stored. Not to be
+     * called on the main thread.
+     */
+    public synchronized void reload() {
+        HashMap<String, String> colorStrings = networksDataSource.getNetworksColor();
+        HashMap<String, Integer> parsedColors = new HashMap<>(colorStrings.size() * 2);
+        for (Map.Entry<String, String> entry : colorStrings.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            try {
+                parsedColors.put(entry.getKey(), Color.parseColor(entry.getValue()));
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "Invalid color for network " + entry.getKey() + ": " + entry.getValue());
+            }
+        }
+        colors = parsedColors;
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (Listener listener : new ArrayList<>(listeners)) {
+                    listener.onColorsLoaded();
+                }
+            }
+        });
+    }
+}
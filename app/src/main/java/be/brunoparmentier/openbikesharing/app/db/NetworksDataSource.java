@@ -19,10 +19,10 @@
 
 package be.brunoparmentier.openbikesharing.app.db;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
 import java.util.ArrayList;
@@ -33,7 +33,9 @@ import be.brunoparmentier.openbikesharing.app.models.BikeNetworkInfo;
 import be.brunoparmentier.openbikesharing.app.models.BikeNetworkLocation;
 
 public class NetworksDataSource {
+    private Context context;
     private DatabaseHelper dbHelper;
+    private HttpCacheDataSource httpCacheDataSource;
 
     private static final String QUERY_NETWORK_INFO_LIST = "SELECT *"
                 + " FROM " + DatabaseHelper.NETWORKS_TABLE_NAME;
@@ -43,40 +45,74 @@ public class NetworksDataSource {
     private static final String QUERY_NETWORK_ID_LIST = "SELECT "
                 + DatabaseHelper.NETWORKS_COLUMN_ID
                 + " FROM " + DatabaseHelper.NETWORKS_TABLE_NAME;
+    private static final String SQL_INSERT_NETWORK = "INSERT INTO "
+                + DatabaseHelper.NETWORKS_TABLE_NAME + " ("
+                + DatabaseHelper.NETWORKS_COLUMN_ID + ", "
+                + DatabaseHelper.NETWORKS_COLUMN_NAME + ", "
+                + DatabaseHelper.NETWORKS_COLUMN_COMPANY + ", "
+                + DatabaseHelper.NETWORKS_COLUMN_LATITUDE + ", "
+                + DatabaseHelper.NETWORKS_COLUMN_LONGITUDE + ", "
+                + DatabaseHelper.NETWORKS_COLUMN_CITY + ", "
+                + DatabaseHelper.NETWORKS_COLUMN_COUNTRY + ", "
+                + DatabaseHelper.NETWORKS_COLUMN_COLOR
+                + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String QUERY_CATALOGUE = "SELECT *"
+                + " FROM " + DatabaseHelper.NETWORKS_CATALOGUE_TABLE_NAME;
+    private static final String SQL_INSERT_CATALOGUE_NETWORK = "INSERT OR REPLACE INTO "
+                + DatabaseHelper.NETWORKS_CATALOGUE_TABLE_NAME + " ("
+                + DatabaseHelper.NETWORKS_COLUMN_ID + ", "
+                + DatabaseHelper.NETWORKS_COLUMN_NAME + ", "
+                + DatabaseHelper.NETWORKS_COLUMN_COMPANY + ", "
+                + DatabaseHelper.NETWORKS_COLUMN_LATITUDE + ", "
+                + DatabaseHelper.NETWORKS_COLUMN_LONGITUDE + ", "
+                + DatabaseHelper.NETWORKS_COLUMN_CITY + ", "
+                + DatabaseHelper.NETWORKS_COLUMN_COUNTRY
+                + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
     private static final String QUERY_COLOR_BY_ID_LIST = "SELECT "
                 + DatabaseHelper.NETWORKS_COLUMN_ID + ", " + DatabaseHelper.NETWORKS_COLUMN_COLOR
                 + " FROM " + DatabaseHelper.NETWORKS_TABLE_NAME;
 
     public NetworksDataSource(Context context) {
+        this.context = context;
         dbHelper = DatabaseHelper.getInstance(context);
+        httpCacheDataSource = new HttpCacheDataSource(context);
     }
 
     public void storeNetworks(ArrayList<BikeNetworkInfo> bikeNetworks) {
         SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement insertStatement = db.compileStatement(SQL_INSERT_NETWORK);
         db.beginTransaction();
         try {
             clearNetworks();
+            /* stations of deselected networks are deleted, they must be downloaded again */
+            httpCacheDataSource.clear();
             for (BikeNetworkInfo bikeNetwork : bikeNetworks) {
-                ContentValues values = new ContentValues();
                 BikeNetworkLocation location = bikeNetwork.getLocation();
-                values.put(DatabaseHelper.NETWORKS_COLUMN_ID, bikeNetwork.getId());
-                values.put(DatabaseHelper.NETWORKS_COLUMN_NAME, bikeNetwork.getName());
-                values.put(DatabaseHelper.NETWORKS_COLUMN_COMPANY, bikeNetwork.getCompany());
-                values.put(DatabaseHelper.NETWORKS_COLUMN_LATITUDE,
-                        Double.doubleToRawLongBits(location.getLatitude()));
-                values.put(DatabaseHelper.NETWORKS_COLUMN_LONGITUDE,
-                        Double.doubleToRawLongBits(location.getLongitude()));
-                values.put(DatabaseHelper.NETWORKS_COLUMN_CITY, location.getCity());
-                values.put(DatabaseHelper.NETWORKS_COLUMN_COUNTRY, location.getCountry());
+                insertStatement.clearBindings();
+                insertStatement.bindString(1, bikeNetwork.getId());
+                insertStatement.bindString(2, bikeNetwork.getName());
+                bindText(insertStatement, 3, bikeNetwork.getCompany());
+                insertStatement.bindDouble(4, location.getLatitude());
+                insertStatement.bindDouble(5, location.getLongitude());
+                bindText(insertStatement, 6, location.getCity());
+                bindText(insertStatement, 7, location.getCountry());
                 if (bikeNetwork.getColor() != null) {
-                    values.put(DatabaseHelper.NETWORKS_COLUMN_COLOR, bikeNetwork.getColor());
+                    insertStatement.bindString(8, bikeNetwork.getColor());
                 }
-                db.insert(DatabaseHelper.NETWORKS_TABLE_NAME, null, values);
+                insertStatement.executeInsert();
             }
             db.setTransactionSuccessful();
         } finally {
             db.endTransaction();
+            insertStatement.close();
         }
+        /* called on the database thread, as any store */
+        NetworkColorCache.getInstance(context).reload();
+    }
+
+    /* Optional text of the API, stored empty in NOT NULL columns when missing */
+    private static void bindText(SQLiteStatement statement, int index, String value) {
+        statement.bindString(index, value != null ? value : "");
     }
 
     public void clearNetworks() {
@@ -108,13 +144,7 @@ public class NetworksDataSource {
 
         try {
             if (cursor.moveToFirst()) {
-                BikeNetworkLocation foundLocation = new BikeNetworkLocation(
-                    Double.longBitsToDouble(cursor.getLong(3)), Double.longBitsToDouble(cursor.getLong(4)),
-                    cursor.getString(5), cursor.getString(6));
-                BikeNetworkInfo foudNetworkInfo = new BikeNetworkInfo(
-                    cursor.getString(0), cursor.getString(1),
-                    cursor.getString(2), foundLocation);
-                return foudNetworkInfo;
+                return toNetworkInfo(cursor);
             } else {
                 return null;
             }
@@ -131,13 +161,7 @@ public class NetworksDataSource {
         try {
             if (cursor.moveToFirst()) {
                 while (!cursor.isAfterLast()) {
-                    BikeNetworkLocation currentLocation = new BikeNetworkLocation(
-                        Double.longBitsToDouble(cursor.getLong(3)), Double.longBitsToDouble(cursor.getLong(4)),
-                        cursor.getString(5), cursor.getString(6));
-                    BikeNetworkInfo currentNetwork = new BikeNetworkInfo(
-                        cursor.getString(0), cursor.getString(1),
-                        cursor.getString(2), currentLocation);
-                    networkInfoList.add(currentNetwork);
+                    networkInfoList.add(toNetworkInfo(cursor));
                     cursor.moveToNext();
                 }
             }
@@ -147,7 +171,51 @@ public class NetworksDataSource {
         }
     }
 
-    public HashMap getNetworksColor() {
+    /**
+     * Replace the local copy of the networks of the API, used to list them without waiting
+     * for the network.
+     */
+    public void storeCatalogue(ArrayList<BikeNetworkInfo> bikeNetworks) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement insertStatement = db.compileStatement(SQL_INSERT_CATALOGUE_NETWORK);
+        db.beginTransaction();
+        try {
+            db.delete(DatabaseHelper.NETWORKS_CATALOGUE_TABLE_NAME, null, null);
+            for (BikeNetworkInfo bikeNetwork : bikeNetworks) {
+                BikeNetworkLocation location = bikeNetwork.getLocation();
+                insertStatement.clearBindings();
+                insertStatement.bindString(1, bikeNetwork.getId());
+                insertStatement.bindString(2, bikeNetwork.getName());
+                bindText(insertStatement, 3, bikeNetwork.getCompany());
+                insertStatement.bindDouble(4, location.getLatitude());
+                insertStatement.bindDouble(5, location.getLongitude());
+                bindText(insertStatement, 6, location.getCity());
+                bindText(insertStatement, 7, location.getCountry());
+                insertStatement.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insertStatement.close();
+        }
+    }
+
+    public ArrayList<BikeNetworkInfo> getCatalogue() {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        ArrayList<BikeNetworkInfo> catalogue = new ArrayList<>();
+        Cursor cursor = db.rawQuery(QUERY_CATALOGUE, null);
+
+        try {
+            while (cursor.moveToNext()) {
+                catalogue.add(toNetworkInfo(cursor));
+            }
+            return catalogue;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    public HashMap<String, String> getNetworksColor() {
         SQLiteDatabase db = dbHelper.getReadableDatabase();
         HashMap<String, String> colorMap = new HashMap<String, String>();
         Cursor cursor = db.rawQuery(QUERY_COLOR_BY_ID_LIST, null);
@@ -165,4 +233,12 @@ public class NetworksDataSource {
         }
     }
 
+    private BikeNetworkInfo toNetworkInfo(Cursor cursor) {
+        BikeNetworkLocation location = new BikeNetworkLocation(
+            cursor.getDouble(3), cursor.getDouble(4),
+            cursor.getString(5), cursor.getString(6));
+        return new BikeNetworkInfo(
+            cursor.getString(0), cursor.getString(1),
+            cursor.getString(2), location);
+    }
 }
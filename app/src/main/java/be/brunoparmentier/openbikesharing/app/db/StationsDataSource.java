@@ -25,52 +25,290 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import be.brunoparmentier.openbikesharing.app.models.Station;
 import be.brunoparmentier.openbikesharing.app.models.StationStatus;
 
+import fr.fdesousa.bikesharinghub.index.TextNormalizer;
+
 public class StationsDataSource {
     private DatabaseHelper dbHelper;
 
+    private static final String QUERY_STATIONS = "SELECT id as _id, name, last_update, latitude, longitude, "
+                + "free_bikes, empty_slots, address, banking, bonus, status, ebikes, network_id "
+                + "FROM " + DatabaseHelper.STATIONS_TABLE_NAME;
+    private static final String QUERY_SEARCH_STATIONS = "SELECT rowid as _id, id, name"
+                + " FROM " + DatabaseHelper.STATIONS_TABLE_NAME
+                + " WHERE rowid IN (SELECT docid FROM " + DatabaseHelper.STATIONS_FTS_TABLE_NAME
+                + " WHERE " + DatabaseHelper.STATIONS_FTS_TABLE_NAME + " MATCH ?)"
+                + " ORDER BY rowid NOT IN (SELECT docid FROM " + DatabaseHelper.STATIONS_FTS_TABLE_NAME
+                + " WHERE " + DatabaseHelper.STATIONS_COLUMN_NAME + " MATCH ?),"
+                + " name NOT LIKE ? ESCAPE '\\', name COLLATE NOCASE"
+                + " LIMIT ";
+    private static final String SQL_INSERT_STATION = "INSERT OR REPLACE INTO "
+                + DatabaseHelper.STATIONS_TABLE_NAME + " ("
+                + DatabaseHelper.STATIONS_COLUMN_NAME + ", "
+                + DatabaseHelper.STATIONS_COLUMN_LAST_UPDATE + ", "
+                + DatabaseHelper.STATIONS_COLUMN_LATITUDE + ", "
+                + DatabaseHelper.STATIONS_COLUMN_LONGITUDE + ", "
+                + DatabaseHelper.STATIONS_COLUMN_FREE_BIKES + ", "
+                + DatabaseHelper.STATIONS_COLUMN_EMPTY_SLOTS + ", "
+                + DatabaseHelper.STATIONS_COLUMN_ADDRESS + ", "
+                + DatabaseHelper.STATIONS_COLUMN_BANKING + ", "
+                + DatabaseHelper.STATIONS_COLUMN_BONUS + ", "
+                + DatabaseHelper.STATIONS_COLUMN_STATUS + ", "
+                + DatabaseHelper.STATIONS_COLUMN_EBIKES + ", "
+                + DatabaseHelper.STATIONS_COLUMN_NETWORK + ", "
+                + DatabaseHelper.STATIONS_COLUMN_DETAILS_HASH + ", "
+                + DatabaseHelper.STATIONS_COLUMN_COUNTS_HASH + ", "
+                + DatabaseHelper.STATIONS_COLUMN_ID
+                + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SQL_UPDATE_STATION = "UPDATE "
+                + DatabaseHelper.STATIONS_TABLE_NAME + " SET "
+                + DatabaseHelper.STATIONS_COLUMN_NAME + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_LAST_UPDATE + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_LATITUDE + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_LONGITUDE + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_FREE_BIKES + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_EMPTY_SLOTS + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_ADDRESS + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_BANKING + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_BONUS + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_STATUS + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_EBIKES + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_NETWORK + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_DETAILS_HASH + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_COUNTS_HASH + " = ?"
+                + " WHERE " + DatabaseHelper.STATIONS_COLUMN_ID + " = ?";
+    private static final String SQL_UPDATE_STATION_COUNTS = "UPDATE "
+                + DatabaseHelper.STATIONS_TABLE_NAME + " SET "
+                + DatabaseHelper.STATIONS_COLUMN_LAST_UPDATE + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_FREE_BIKES + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_EMPTY_SLOTS + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_STATUS + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_EBIKES + " = ?, "
+                + DatabaseHelper.STATIONS_COLUMN_COUNTS_HASH + " = ?"
+                + " WHERE " + DatabaseHelper.STATIONS_COLUMN_ID + " = ?";
+    private static final String QUERY_STORED_HASHES = "SELECT "
+                + DatabaseHelper.STATIONS_COLUMN_ID + ", "
+                + DatabaseHelper.STATIONS_COLUMN_DETAILS_HASH + ", "
+                + DatabaseHelper.STATIONS_COLUMN_COUNTS_HASH
+                + " FROM " + DatabaseHelper.STATIONS_TABLE_NAME;
+    private static final String SQL_DELETE_STATION = "DELETE FROM "
+                + DatabaseHelper.STATIONS_TABLE_NAME
+                + " WHERE " + DatabaseHelper.STATIONS_COLUMN_ID + " = ?";
+    private static final String SQL_DELETE_UNSELECTED_NETWORKS_STATIONS = "DELETE FROM "
+                + DatabaseHelper.STATIONS_TABLE_NAME
+                + " WHERE " + DatabaseHelper.STATIONS_COLUMN_NETWORK + " IS NULL"
+                + " OR " + DatabaseHelper.STATIONS_COLUMN_NETWORK + " NOT IN (SELECT "
+                + DatabaseHelper.NETWORKS_COLUMN_ID + " FROM " + DatabaseHelper.NETWORKS_TABLE_NAME + ")";
+
+    /* 64-bit FNV-1a, to hash the values of the stations compared on each refresh */
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
     public StationsDataSource(Context context) {
         dbHelper = DatabaseHelper.getInstance(context);
     }
 
+    /**
+     * Store the stations of one or more networks. For each network, existing rows are only
+     * updated when their content changed, new stations are inserted and stations which
+     * disappeared are deleted. Stations of networks which are no longer selected are deleted.
+     * Changes are found from hashes stored with each row, so that stored stations are not read.
+     */
     public void storeStations(ArrayList<Station> stations) {
+        HashMap<String, ArrayList<Station>> stationsByNetwork = new HashMap<>();
+        for (Station station : stations) {
+            ArrayList<Station> networkStations = stationsByNetwork.get(station.getNetworkId());
+            if (networkStations == null) {
+                networkStations = new ArrayList<>();
+                stationsByNetwork.put(station.getNetworkId(), networkStations);
+            }
+            networkStations.add(station);
+        }
+
         SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement insertStatement = db.compileStatement(SQL_INSERT_STATION);
+        SQLiteStatement updateStatement = db.compileStatement(SQL_UPDATE_STATION);
+        SQLiteStatement updateCountsStatement = db.compileStatement(SQL_UPDATE_STATION_COUNTS);
+        SQLiteStatement deleteStatement = db.compileStatement(SQL_DELETE_STATION);
         db.beginTransaction();
         try {
-            clearStations();
-            for (Station station : stations) {
-                ContentValues values = new ContentValues();
-                values.put(DatabaseHelper.STATIONS_COLUMN_ID, station.getId());
-                values.put(DatabaseHelper.STATIONS_COLUMN_NAME, station.getName());
-                values.put(DatabaseHelper.STATIONS_COLUMN_LAST_UPDATE, station.getLastUpdate());
-                values.put(DatabaseHelper.STATIONS_COLUMN_LATITUDE, String.valueOf(station.getLatitude()));
-                values.put(DatabaseHelper.STATIONS_COLUMN_LONGITUDE, String.valueOf(station.getLongitude()));
-                values.put(DatabaseHelper.STATIONS_COLUMN_FREE_BIKES, String.valueOf(station.getFreeBikes()));
-                values.put(DatabaseHelper.STATIONS_COLUMN_EMPTY_SLOTS, String.valueOf(station.getEmptySlots()));
-                values.put(DatabaseHelper.STATIONS_COLUMN_NETWORK, station.getNetworkId());
-                if (station.getAddress() != null)
-                    values.put(DatabaseHelper.STATIONS_COLUMN_ADDRESS, station.getAddress());
-                if (station.isBanking() != null)
-                    values.put(DatabaseHelper.STATIONS_COLUMN_BANKING, station.isBanking() ? 1 : 0);
-                if (station.isBonus() != null)
-                    values.put(DatabaseHelper.STATIONS_COLUMN_BONUS, station.isBonus() ? 1 : 0);
-                if (station.getStatus() != null)
-                    values.put(DatabaseHelper.STATIONS_COLUMN_STATUS, station.getStatus().name());
-                if (station.getEBikes() != null) {
-                    values.put(DatabaseHelper.STATIONS_COLUMN_EBIKES, String.valueOf(station.getEBikes()));
+            for (Map.Entry<String, ArrayList<Station>> entry : stationsByNetwork.entrySet()) {
+                StoredHashes stored = getStoredHashes(db, entry.getKey());
+
+                for (Station station : entry.getValue()) {
+                    int position = stored.remove(station.getId());
+                    if (position == -1) {
+                        bindStation(insertStatement, station);
+                        insertStatement.executeInsert();
+                    } else if (stored.detailsHashes[position] != detailsHash(station)) {
+                        bindStation(updateStatement, station);
+                        updateStatement.executeUpdateDelete();
+                    } else if (stored.countsHashes[position] != countsHash(station)) {
+                        bindCounts(updateCountsStatement, station);
+                        updateCountsStatement.executeUpdateDelete();
+                    }
+                }
+
+                /* what is left has disappeared from the network */
+                for (int i = 0; i < stored.ids.length; i++) {
+                    if (stored.ids[i] != null) {
+                        deleteStatement.bindString(1, stored.ids[i]);
+                        deleteStatement.executeUpdateDelete();
+                    }
                 }
-                db.insert(DatabaseHelper.STATIONS_TABLE_NAME, null, values);
             }
+            db.execSQL(SQL_DELETE_UNSELECTED_NETWORKS_STATIONS);
             db.setTransactionSuccessful();
         } finally {
             db.endTransaction();
+            insertStatement.close();
+            updateStatement.close();
+            updateCountsStatement.close();
+            deleteStatement.close();
+        }
+    }
+
+    /**
+     * Ids and hashes of the stored stations of a network, as parallel arrays. Ids are cleared
+     * once found in the downloaded stations, those left have disappeared.
+     */
+    private static class StoredHashes {
+        final String[] ids;
+        final long[] detailsHashes;
+        final long[] countsHashes;
+        final HashMap<String, Integer> positions;
+
+        StoredHashes(int size) {
+            ids = new String[size];
+            detailsHashes = new long[size];
+            countsHashes = new long[size];
+            positions = new HashMap<>(size * 2);
+        }
+
+        /* position of the station, or -1 if it is not stored */
+        int remove(String id) {
+            Integer position = positions.remove(id);
+            if (position == null) {
+                return -1;
+            }
+            ids[position] = null;
+            return position;
+        }
+    }
+
+    private StoredHashes getStoredHashes(SQLiteDatabase db, String networkId) {
+        Cursor cursor;
+        if (networkId == null) {
+            cursor = db.rawQuery(QUERY_STORED_HASHES + " WHERE network_id IS NULL", null);
+        } else {
+            cursor = db.rawQuery(QUERY_STORED_HASHES + " WHERE network_id = ?", new String[] { networkId });
+        }
+        try {
+            StoredHashes stored = new StoredHashes(cursor.getCount());
+            for (int i = 0; cursor.moveToNext(); i++) {
+                /* rows stored before the hashes were added read as 0 and are updated */
+                stored.ids[i] = cursor.getString(0);
+                stored.detailsHashes[i] = cursor.getLong(1);
+                stored.countsHashes[i] = cursor.getLong(2);
+                stored.positions.put(stored.ids[i], i);
+            }
+            return stored;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /* Bind every column in the order of SQL_INSERT_STATION and SQL_UPDATE_STATION, id last */
+    private static void bindStation(SQLiteStatement statement, Station station) {
+        statement.clearBindings();
+        statement.bindString(1, station.getName());
+        statement.bindString(2, station.getLastUpdate());
+        statement.bindDouble(3, station.getLatitude());
+        statement.bindDouble(4, station.getLongitude());
+        statement.bindLong(5, station.getFreeBikes());
+        statement.bindLong(6, station.getEmptySlots());
+        if (station.getAddress() != null)
+            statement.bindString(7, station.getAddress());
+        if (station.isBanking() != null)
+            statement.bindLong(8, station.isBanking() ? 1 : 0);
+        if (station.isBonus() != null)
+            statement.bindLong(9, station.isBonus() ? 1 : 0);
+        if (station.getStatus() != null)
+            statement.bindString(10, station.getStatus().name());
+        if (station.getEBikes() != null)
+            statement.bindLong(11, station.getEBikes());
+        if (station.getNetworkId() != null)
+            statement.bindString(12, station.getNetworkId());
+        statement.bindLong(13, detailsHash(station));
+        statement.bindLong(14, countsHash(station));
+        statement.bindString(15, station.getId());
+    }
+
+    /* Bind the columns which change on every refresh, in the order of SQL_UPDATE_STATION_COUNTS, id last */
+    private static void bindCounts(SQLiteStatement statement, Station station) {
+        statement.clearBindings();
+        statement.bindString(1, station.getLastUpdate());
+        statement.bindLong(2, station.getFreeBikes());
+        statement.bindLong(3, station.getEmptySlots());
+        if (station.getStatus() != null)
+            statement.bindString(4, station.getStatus().name());
+        if (station.getEBikes() != null)
+            statement.bindLong(5, station.getEBikes());
+        statement.bindLong(6, countsHash(station));
+        statement.bindString(7, station.getId());
+    }
+
+    /* 64-bit FNV-1a hash of the values only changed by the network operator. A collision would
+     * only delay an update to the next change, with a 2^-64 chance. */
+    private static long detailsHash(Station station) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hash(hash, station.getName());
+        hash = hash(hash, Double.doubleToLongBits(station.getLatitude()));
+        hash = hash(hash, Double.doubleToLongBits(station.getLongitude()));
+        hash = hash(hash, station.getAddress());
+        hash = hash(hash, station.isBanking() == null ? -1 : (station.isBanking() ? 1 : 0));
+        hash = hash(hash, station.isBonus() == null ? -1 : (station.isBonus() ? 1 : 0));
+        return hash;
+    }
+
+    /* 64-bit FNV-1a hash of the values which change on every refresh */
+    private static long countsHash(Station station) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hash(hash, station.getLastUpdate());
+        hash = hash(hash, station.getFreeBikes());
+        hash = hash(hash, station.getEmptySlots());
+        hash = hash(hash, station.getStatus() == null ? -1 : station.getStatus().ordinal());
+        hash = hash(hash, station.getEBikes() == null ? -1 : station.getEBikes());
+        return hash;
+    }
+
+    private static long hash(long hash, long value) {
+        for (int i = 0; i < 64; i += 8) {
+            hash = (hash ^ ((value >>> i) & 0xff)) * FNV_PRIME;
         }
+        return hash;
+    }
+
+    /* null and each string hash differently, strings being followed by their length */
+    private static long hash(long hash, String value) {
+        if (value == null) {
+            return hash(hash, -1);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash(hash, value.length());
     }
 
     public void clearStations() {
@@ -81,9 +319,7 @@ public class StationsDataSource {
     public ArrayList<Station> getStations() {
         SQLiteDatabase db = dbHelper.getReadableDatabase();
         ArrayList<Station> stations = new ArrayList<>();
-        Cursor cursor = db.rawQuery("SELECT id as _id, name, last_update, latitude, longitude, "
-                + "free_bikes, empty_slots, address, banking, bonus, status, ebikes, network_id "
-                + "FROM " + DatabaseHelper.STATIONS_TABLE_NAME, null);
+        Cursor cursor = db.rawQuery(QUERY_STATIONS, null);
 
         try {
             if (cursor.moveToFirst()) {
@@ -100,13 +336,95 @@ public class StationsDataSource {
         }
     }
 
+    /**
+     * Stations located in the given bounding box, through the R*Tree mirror of the stations
+     * table when SQLite supports it, so that only the stations of a region are materialized.
+     */
+    /**
+     * Stations inside the given bounds, at most limit of them, the closest to the given center
+     * first. Distances are only compared, on a plane scaled to the latitude of the center, so
+     * that SQLite keeps the closest stations without any other one being read.
+     */
+    public ArrayList<Station> getStationsInBounds(double minLatitude, double minLongitude,
+                                                  double maxLatitude, double maxLongitude,
+                                                  double centerLatitude, double centerLongitude,
+                                                  int limit) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        ArrayList<Station> stations = new ArrayList<>();
+        String latitude = String.valueOf(centerLatitude);
+        String longitude = String.valueOf(centerLongitude);
+        String scale = String.valueOf(Math.cos(Math.toRadians(centerLatitude)));
+        String[] arguments = new String[] {
+                String.valueOf(minLatitude), String.valueOf(maxLatitude),
+                String.valueOf(minLongitude), String.valueOf(maxLongitude),
+                latitude, latitude, longitude, scale, longitude, scale };
+        String orderBy = " ORDER BY (" + DatabaseHelper.STATIONS_COLUMN_LATITUDE + " - ?)"
+                + " * (" + DatabaseHelper.STATIONS_COLUMN_LATITUDE + " - ?)"
+                + " + (" + DatabaseHelper.STATIONS_COLUMN_LONGITUDE + " - ?) * ?"
+                + " * (" + DatabaseHelper.STATIONS_COLUMN_LONGITUDE + " - ?) * ?"
+                + " LIMIT " + limit;
+        Cursor cursor;
+        if (dbHelper.hasStationsRTree()) {
+            /* the R*Tree stores rounded values, look for overlapping boxes rather than contained */
+            cursor = db.rawQuery(QUERY_STATIONS + " WHERE rowid IN (SELECT "
+                    + DatabaseHelper.STATIONS_RTREE_COLUMN_ID
+                    + " FROM " + DatabaseHelper.STATIONS_RTREE_TABLE_NAME
+                    + " WHERE " + DatabaseHelper.STATIONS_RTREE_COLUMN_MAX_LATITUDE + " >= ?"
+                    + " AND " + DatabaseHelper.STATIONS_RTREE_COLUMN_MIN_LATITUDE + " <= ?"
+                    + " AND " + DatabaseHelper.STATIONS_RTREE_COLUMN_MAX_LONGITUDE + " >= ?"
+                    + " AND " + DatabaseHelper.STATIONS_RTREE_COLUMN_MIN_LONGITUDE + " <= ?)"
+                    + orderBy, arguments);
+        } else {
+            cursor = db.rawQuery(QUERY_STATIONS
+                    + " WHERE " + DatabaseHelper.STATIONS_COLUMN_LATITUDE + " BETWEEN ? AND ?"
+                    + " AND " + DatabaseHelper.STATIONS_COLUMN_LONGITUDE + " BETWEEN ? AND ?"
+                    + orderBy, arguments);
+        }
+
+        try {
+            while (cursor.moveToNext()) {
+                stations.add(toStation(cursor));
+            }
+            return stations;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    public boolean hasFullTextSearch() {
+        return dbHelper.hasStationsFullTextSearch();
+    }
+
+    /**
+     * Stations whose name or address contain words starting with the words of the query,
+     * ignoring case and accents. Stations matching by name come first.
+     *
+     * @return a cursor with the _id, id and name columns, or null if the query has no word
+     */
+    public Cursor searchStations(String query, int limit) {
+        StringBuilder match = new StringBuilder();
+        for (String word : TextNormalizer.normalize(query).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                match.append(word).append("* ");
+            }
+        }
+        if (match.length() == 0) {
+            return null;
+        }
+        String matchQuery = match.toString().trim();
+        /* names starting with the query come first, whatever LIKE wildcards it contains */
+        String prefix = query.trim().replace("\\", "\\\\")
+                .replace("%", "\\%").replace("_", "\\_");
+
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        return db.rawQuery(QUERY_SEARCH_STATIONS + limit, new String[] {
+                matchQuery, matchQuery, prefix + "%" });
+    }
+
     public Station getStation(String id) {
         SQLiteDatabase db = dbHelper.getReadableDatabase();
 
-        Cursor cursor = db.rawQuery("SELECT id as _id, name, last_update, latitude, longitude, "
-                + "free_bikes, empty_slots, address, banking, bonus, status, ebikes "
-                + "FROM " + DatabaseHelper.STATIONS_TABLE_NAME + " "
-                + "WHERE id = ?", new String[] { id });
+        Cursor cursor = db.rawQuery(QUERY_STATIONS + " WHERE id = ?", new String[] { id });
         try {
             if (cursor.moveToFirst()) {
                 return toStation(cursor);
@@ -153,6 +471,21 @@ public class StationsDataSource {
         }
     }
 
+    public ArrayList<String> getFavoriteStationsId() {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        ArrayList<String> favStationsId = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT " + DatabaseHelper.FAV_STATIONS_COLUMN_ID
+                + " FROM " + DatabaseHelper.FAV_STATIONS_TABLE_NAME, null);
+        try {
+            while (cursor.moveToNext()) {
+                favStationsId.add(cursor.getString(0));
+            }
+            return favStationsId;
+        } finally {
+            cursor.close();
+        }
+    }
+
     public boolean isFavoriteStation(String id) {
         SQLiteDatabase db = dbHelper.getReadableDatabase();
         Cursor cursor = db.rawQuery("SELECT id "
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.brunoparmentier.openbikesharing.app.db;
+
+import android.arch.lifecycle.LiveData;
+import android.arch.lifecycle.MutableLiveData;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import be.brunoparmentier.openbikesharing.app.models.StationsSnapshot;
+
+/**
+ * Application wide holder of the snapshot of the stored stations, so that screens share one
+ * copy instead of reading the whole stations table each. The snapshot is loaded on first use,
+ * and replaced as a whole once stations or favorites have been stored. Each new snapshot is
+ * also posted to a LiveData, for screens to follow.
+ */
+public class StationsRepository {
+    private static StationsRepository instance;
+
+    private final AsyncDataSource asyncDataSource;
+    private final StationsDataSource stationsDataSource;
+    private final Handler mainHandler;
+
+    private volatile StationsSnapshot snapshot;
+    private final MutableLiveData<StationsSnapshot> snapshotLiveData = new MutableLiveData<>();
+    private long lastVersion;
+
+    public static synchronized StationsRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new StationsRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private StationsRepository(Context context) {
+        asyncDataSource = AsyncDataSource.getInstance(context);
+        stationsDataSource = new StationsDataSource(context);
+        mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * The current snapshot, or null if it has not been loaded yet.
+     */
+    public StationsSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Each snapshot once loaded or replaced. Observing it does not load the snapshot.
+     */
+    public LiveData<StationsSnapshot> getSnapshotLiveData() {
+        return snapshotLiveData;
+    }
+
+    /**
+     * Give the current snapshot to the callback on the main thread, once loaded if needed.
+     */
+    public void loadSnapshot(final AsyncDataSource.Callback<StationsSnapshot> callback) {
+        final StationsSnapshot current = snapshot;
+        if (current != null) {
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onResult(current);
+                }
+            });
+            return;
+        }
+        asyncDataSource.execute(new AsyncDataSource.Query<StationsSnapshot>() {
+            @Override
+            public StationsSnapshot run() {
+                return getSnapshotBlocking();
+            }
+        }, callback);
+    }
+
+    /**
+     * The current snapshot, loaded on the calling thread if needed. Not to be called on the
+     * main thread.
+     */
+    public StationsSnapshot getSnapshotBlocking() {
+        StationsSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                reload();
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Read the stations and favorites again once stored, and replace the snapshot. Not to be
+     * called on the main thread.
+     */
+    public synchronized StationsSnapshot reload() {
+        snapshot = new StationsSnapshot(++lastVersion, stationsDataSource.getStations(),
+                stationsDataSource.getFavoriteStationsId());
+        snapshotLiveData.postValue(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Read the favorites again once stored, keeping the stations of the snapshot. Not to be
+     * called on the main thread.
+     */
+    public synchronized StationsSnapshot reloadFavorites() {
+        if (snapshot == null) {
+            return reload();
+        }
+        snapshot = snapshot.withFavorites(++lastVersion, stationsDataSource.getFavoriteStationsId());
+        snapshotLiveData.postValue(snapshot);
+        return snapshot;
+    }
+}
@@ -36,6 +36,7 @@ import android.preference.PreferenceManager;
 import android.text.format.DateFormat;
 import android.util.Log;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.osmdroid.config.Configuration;
@@ -45,7 +46,8 @@ import org.osmdroid.views.MapView;
 
 import be.brunoparmentier.openbikesharing.app.BuildConfig;
 import be.brunoparmentier.openbikesharing.app.R;
-import be.brunoparmentier.openbikesharing.app.db.NetworksDataSource;
+import be.brunoparmentier.openbikesharing.app.db.AsyncDataSource;
+import be.brunoparmentier.openbikesharing.app.db.HttpCacheDataSource;
 import be.brunoparmentier.openbikesharing.app.models.BikeNetworkInfo;
 
 /**
@@ -56,6 +58,7 @@ public class SettingsFragment extends PreferenceFragment implements SharedPrefer
     private static final String TAG = "SettingsFragment";
     private static final String PREF_KEY_CHOOSE_NETWORK = "choose_network";
     private static final String PREF_KEY_API_URL = "pref_api_url";
+    private static final String PREF_KEY_STRIP_ID_STATION = "pref_strip_id_station";
     private static final String PREF_KEY_MAP_CACHE_MAX_SIZE = "pref_map_tiles_cache_max_size";
     private static final String PREF_KEY_MAP_CACHE_TRIM_SIZE = "pref_map_tiles_cache_trim_size";
     private Context mContext = null;
@@ -130,6 +133,17 @@ public class SettingsFragment extends PreferenceFragment implements SharedPrefer
 
     @Override
     public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+        if (key.equals(PREF_KEY_STRIP_ID_STATION)) {
+            /* stored station names change, even if the networks have not been modified */
+            final HttpCacheDataSource httpCacheDataSource = new HttpCacheDataSource(getActivity());
+            AsyncDataSource.getInstance(getActivity()).execute(new AsyncDataSource.Query<Void>() {
+                @Override
+                public Void run() {
+                    httpCacheDataSource.clear();
+                    return null;
+                }
+            }, null);
+        }
         updatePreference(key);
     }
 
@@ -141,25 +155,32 @@ public class SettingsFragment extends PreferenceFragment implements SharedPrefer
                 editTextPreference.setSummary(editTextPreference.getText());
             //}
         } else if (key.equals(PREF_KEY_CHOOSE_NETWORK) && mContext != null) {
-            Preference preference = findPreference(key);
-            NetworksDataSource networksDataSource = new NetworksDataSource(mContext);
-            List<String> idList = networksDataSource.getNetworksId();
-            switch(idList.size()) {
-                case 0:
-                    preference.setSummary(getString(R.string.pref_title_bike_networks_list_summary_none));
-                    break;
-                case 1:
-                    BikeNetworkInfo networkInfo = networksDataSource.getNetworkInfoFromId(idList.get(0));
-                    String networkName = networkInfo.getName();
-                    String networkCity = networkInfo.getLocation().getCity();
-                    preference.setSummary(networkName + " (" + networkCity + ")");
-                    break;
-                default:
-                    preference.setSummary(getResources().getString(
-                            R.string.pref_title_bike_networks_list_summary_multiple_selection,
-                            idList.size()));
-                    break;
+            final Preference preference = findPreference(key);
+            AsyncDataSource.getInstance(mContext).getNetworkInfoList(
+                    new AsyncDataSource.Callback<ArrayList<BikeNetworkInfo>>() {
+                @Override
+                public void onResult(ArrayList<BikeNetworkInfo> networks) {
+                    if (!isAdded()) {
+                        return;
+                    }
+                    switch(networks.size()) {
+                        case 0:
+                            preference.setSummary(getString(R.string.pref_title_bike_networks_list_summary_none));
+                            break;
+                        case 1:
+                            BikeNetworkInfo networkInfo = networks.get(0);
+                            String networkName = networkInfo.getName();
+                            String networkCity = networkInfo.getLocation().getCity();
+                            preference.setSummary(networkName + " (" + networkCity + ")");
+                            break;
+                        default:
+                            preference.setSummary(getResources().getString(
+                                    R.string.pref_title_bike_networks_list_summary_multiple_selection,
+                                    networks.size()));
+                            break;
+                    }
                 }
+            });
         } else if (key.equals(PREF_KEY_MAP_CACHE_MAX_SIZE)){
             Preference preference = findPreference(key);
             EditTextPreference editTextPreference =  (EditTextPreference) preference;
@@ -22,6 +22,8 @@
 package be.brunoparmentier.openbikesharing.app.fragments;
 
 import android.app.Activity;
+import android.arch.lifecycle.LiveData;
+import android.arch.lifecycle.Observer;
 import android.arch.lifecycle.ViewModel;
 import android.arch.lifecycle.ViewModelProvider;
 import android.arch.lifecycle.ViewModelStoreOwner;
@@ -29,15 +31,15 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
 import android.support.v4.widget.SwipeRefreshLayout;
+import android.support.v7.widget.DividerItemDecoration;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.AbsListView;
-import android.widget.AdapterView;
-import android.widget.ListView;
 import android.widget.TextView;
 
-import java.util.ArrayList;
+import java.util.List;
 
 import be.brunoparmentier.openbikesharing.app.R;
 import be.brunoparmentier.openbikesharing.app.activities.StationActivity;
@@ -47,14 +49,12 @@ import fr.fdesousa.bikesharinghub.models.StationsListViewModel;
 import fr.fdesousa.bikesharinghub.models.StationsListViewModelFactory;
 
 public class StationsListFragment extends Fragment implements ViewModelStoreOwner {
-    private static final String KEY_STATION = "station";
     private static final String KEY_EMPTY_LIST_TEXT = "empty_list_text_key";
     private static final String KEY_FRAGMENT_ID = "fragment_id_key";
     public static final int FRAGMENT_NEARBY = 1;
     public static final int FRAGMENT_FAVORITES = 2;
     public static final int FRAGMENT_ALL = 3;
 
-    private ArrayList<Station> stations;
     private StationsListAdapter stationsListAdapter;
     private String emptyViewContent;
     private TextView emptyView;
@@ -79,10 +79,17 @@ public class StationsListFragment extends Fragment implements ViewModelStoreOwne
         }
         StationsListViewModelFactory factory = new StationsListViewModelFactory(getActivity().getApplication());
         StationsListViewModel model = new ViewModelProvider(this, factory).get(StationsListViewModel.class);
+        stationsListAdapter = new StationsListAdapter(getActivity(),
+                new StationsListAdapter.OnStationClickListener() {
+                    @Override
+                    public void onStationClick(Station station) {
+                        Intent intent = new Intent(getActivity(), StationActivity.class);
+                        intent.putExtra(StationActivity.EXTRA_STATION_ID, station.getId());
+                        startActivity(intent);
+                    }
+                });
+        LiveData<List<Station>> stations = null;
         switch(getArguments().getInt(KEY_FRAGMENT_ID)) {
-            case 1:
-                stations = new ArrayList<Station>();
-                break;
             case 2:
                 stations = model.getFavoriteStations();
                 break;
@@ -90,43 +97,45 @@ public class StationsListFragment extends Fragment implements ViewModelStoreOwne
                 stations = model.getStations();
                 break;
         }
-        stationsListAdapter = new StationsListAdapter(getActivity(),
-                R.layout.station_list_item, stations);
+        /* shown until the activity gives newer stations */
+        if (stations != null) {
+            stations.observe(this, new Observer<List<Station>>() {
+                @Override
+                public void onChanged(List<Station> result) {
+                    updateStationsList(result);
+                }
+            });
+        }
     }
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_stations_list, container, false);
-        ListView listView = (ListView) view.findViewById(R.id.stationsListView);
-        listView.setAdapter(stationsListAdapter);
+        RecyclerView recyclerView = (RecyclerView) view.findViewById(R.id.stationsListView);
+        recyclerView.setLayoutManager(new LinearLayoutManager(getActivity()));
+        recyclerView.addItemDecoration(new DividerItemDecoration(getActivity(),
+                DividerItemDecoration.VERTICAL));
+        recyclerView.setAdapter(stationsListAdapter);
         emptyView = (TextView) view.findViewById(R.id.emptyList);
         emptyView.setText(emptyViewContent);
-        listView.setEmptyView(view.findViewById(R.id.emptyList));
-        listView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
-            @Override
-            public void onItemClick(AdapterView<?> parent, View view,
-                                    int position, long id) {
-                Intent intent = new Intent(getActivity(), StationActivity.class);
-                intent.putExtra(KEY_STATION, stations.get(position));
-                startActivity(intent);
-            }
-        });
-        listView.setOnScrollListener(new AbsListView.OnScrollListener() {
-            @Override
-            public void onScrollStateChanged(AbsListView view, int scrollState) {
-
-            }
-
+        updateEmptyView();
+        stationsListAdapter.registerAdapterDataObserver(emptyViewObserver);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
-            public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+            public void onScrolled(RecyclerView view, int dx, int dy) {
                 SwipeRefreshLayout refreshLayout = (SwipeRefreshLayout) getActivity().findViewById(R.id.swipe_container);
-                if(firstVisibleItem == 0) refreshLayout.setEnabled(true);
-                else refreshLayout.setEnabled(false);
+                refreshLayout.setEnabled(!view.canScrollVertically(-1));
             }
         });
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        stationsListAdapter.unregisterAdapterDataObserver(emptyViewObserver);
+        super.onDestroyView();
+    }
+
     @Override
     public void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
@@ -134,14 +143,35 @@ public class StationsListFragment extends Fragment implements ViewModelStoreOwne
     }
 
 
-    public void updateStationsList(ArrayList<Station> stations) {
+    public void updateStationsList(List<Station> stations) {
         if (stationsListAdapter != null) {
-            stationsListAdapter.clear();
-            stationsListAdapter.addAll(stations);
-            stationsListAdapter.notifyDataSetChanged();
+            stationsListAdapter.submitList(stations);
+        }
+    }
+
+    private void updateEmptyView() {
+        if (emptyView != null) {
+            emptyView.setVisibility(stationsListAdapter.getItemCount() == 0 ? View.VISIBLE : View.GONE);
         }
     }
 
+    private final RecyclerView.AdapterDataObserver emptyViewObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            updateEmptyView();
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            updateEmptyView();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            updateEmptyView();
+        }
+    };
+
     public void setEmptyView(int id) {
         if(emptyView != null) {
             emptyView.setText(id);
@@ -27,28 +27,18 @@ import android.appwidget.AppWidgetProvider;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.net.Uri;
-import android.os.AsyncTask;
-import android.preference.PreferenceManager;
 import android.util.Log;
 import android.widget.RemoteViews;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.text.ParseException;
-import java.util.ArrayList;
+import java.util.List;
 
 import be.brunoparmentier.openbikesharing.app.R;
 import be.brunoparmentier.openbikesharing.app.activities.StationsListActivity;
-import be.brunoparmentier.openbikesharing.app.db.StationsDataSource;
-import be.brunoparmentier.openbikesharing.app.db.NetworksDataSource;
 import be.brunoparmentier.openbikesharing.app.models.BikeNetwork;
 import be.brunoparmentier.openbikesharing.app.models.Station;
-import be.brunoparmentier.openbikesharing.app.parsers.BikeNetworkParser;
+
+import fr.fdesousa.bikesharinghub.network.StationsRefreshManager;
 
 
 /**
@@ -57,15 +47,10 @@ import be.brunoparmentier.openbikesharing.app.parsers.BikeNetworkParser;
 public class StationsListAppWidgetProvider extends AppWidgetProvider {
     private static final String TAG = StationsListAppWidgetProvider.class.getSimpleName();
 
-    private static final String DEFAULT_API_URL = "https://api.citybik.es/v2/";
-    private static final String PREF_KEY_API_URL = "pref_api_url";
-    private static final String PREF_KEY_DB_LAST_UPDATE = "db_last_update";
-
     public static final String EXTRA_ITEM = "be.brunoparmentier.openbikesharing.app.widget.EXTRA_ITEM";
     public static final String EXTRA_REFRESH_LIST_ONLY =
             "be.brunoparmentier.openbikesharing.app.widget.EXTRA_REFRESH_LIST_ONLY";
 
-    private ArrayList<Station> stations;
     private Context mContext;
 
     @Override
@@ -137,79 +122,23 @@ public class StationsListAppWidgetProvider extends AppWidgetProvider {
                 final ComponentName cn = new ComponentName(mContext, StationsListAppWidgetProvider.class);
                 mgr.notifyAppWidgetViewDataChanged(mgr.getAppWidgetIds(cn), R.id.widgetStationsList);
             } else {
-                /* Download new data then update widget list */
-                NetworksDataSource networksDataSource = new NetworksDataSource(context);
-                ArrayList<String> networksId = networksDataSource.getNetworksId();
-                ArrayList<String> networksUrlList = new ArrayList<String>();
-                SharedPreferences settings = PreferenceManager.getDefaultSharedPreferences(context);
-                for (String id : networksId) {
-                    String stationUrl = settings.getString(PREF_KEY_API_URL, DEFAULT_API_URL)
-                                + "networks/" + id;
-                    networksUrlList.add(stationUrl);
-                }
-                String[] networksUrl = networksUrlList.toArray(new String[networksUrlList.size()]);
-
-                new JSONDownloadTask().execute(networksUrl);
-            }
-        }
-    }
-
-    private class JSONDownloadTask extends AsyncTask<String, Void, String> {
-
-        @Override
-        protected String doInBackground(String... urls) {
-            if (urls.length == 0 || urls[0].isEmpty()) {
-                return null;
-            }
-            try {
-                StringBuilder response = new StringBuilder();
-
-                URL url = new URL(urls[0]);
-                HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-                if (conn.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                    BufferedReader input = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                    String strLine;
-                    while ((strLine = input.readLine()) != null) {
-                        response.append(strLine);
-                    }
-                    input.close();
-                }
-                Log.d(TAG, "Stations downloaded");
-                return response.toString();
-            } catch (IOException e) {
-                Log.d(TAG, e.getMessage());
-                return e.getMessage();
-            }
-        }
-
-        @Override
-        protected void onPostExecute(final String result) {
-            if (result == null) {
-                Log.d(TAG, "Result NOK");
-            } else {
-                try {
-                    /* parse result */
-                    BikeNetworkParser bikeNetworkParser = new BikeNetworkParser(result, true);
-                    BikeNetwork bikeNetwork = bikeNetworkParser.getNetwork();
-
-                    stations = bikeNetwork.getStations();
-
-                    StationsDataSource stationsDataSource = new StationsDataSource(mContext);
-                    stationsDataSource.storeStations(stations);
-
-                    PreferenceManager.getDefaultSharedPreferences(mContext).edit()
-                            .putLong(PREF_KEY_DB_LAST_UPDATE, System.currentTimeMillis())
-                            .apply();
-
-                    final AppWidgetManager mgr = AppWidgetManager.getInstance(mContext);
-                    final ComponentName cn = new ComponentName(mContext, StationsListAppWidgetProvider.class);
-                    mgr.notifyAppWidgetViewDataChanged(mgr.getAppWidgetIds(cn), R.id.widgetStationsList);
-
-                } catch (ParseException e) {
-                    Log.e(TAG, e.getMessage());
-                }
+                /* Download new data of every network, the refresh updates the widget list */
+                final PendingResult pendingResult = goAsync();
+                StationsRefreshManager.getInstance(context).refreshStations(
+                        new StationsRefreshManager.Listener() {
+                            @Override
+                            public void onNetworkRefreshed(BikeNetwork bikeNetwork) {
+                            }
+
+                            @Override
+                            public void onRefreshFinished(List<Station> stations,
+                                                          int refreshedNetworks, int failedNetworks) {
+                                Log.d(TAG, refreshedNetworks + " networks refreshed, "
+                                        + failedNetworks + " failed");
+                                pendingResult.finish();
+                            }
+                        });
             }
         }
     }
 }
-
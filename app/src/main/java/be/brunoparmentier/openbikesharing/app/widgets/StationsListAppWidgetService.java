@@ -29,12 +29,10 @@ import android.view.View;
 import android.widget.RemoteViews;
 import android.widget.RemoteViewsService;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import be.brunoparmentier.openbikesharing.app.R;
-import be.brunoparmentier.openbikesharing.app.db.StationsDataSource;
-import be.brunoparmentier.openbikesharing.app.models.Station;
+import be.brunoparmentier.openbikesharing.app.db.StationsRepository;
+import be.brunoparmentier.openbikesharing.app.models.StationTable;
+import be.brunoparmentier.openbikesharing.app.models.StationsSnapshot;
 
 public class StationsListAppWidgetService extends RemoteViewsService {
     @Override
@@ -44,10 +42,12 @@ public class StationsListAppWidgetService extends RemoteViewsService {
 }
 
 class StationsListAppWidgetFactory implements RemoteViewsService.RemoteViewsFactory {
-    private List<Station> stations = new ArrayList<>();
+    /* favorite stations of the snapshot, read through a reused row, null once destroyed */
+    private StationTable.Rows stations;
+    private StationTable.Row station;
     private Context mContext;
     private int mAppWidgetId;
-    private StationsDataSource stationsDataSource;
+    private StationsRepository stationsRepository;
 
     public StationsListAppWidgetFactory(Context context, Intent intent) {
         mContext = context;
@@ -60,8 +60,9 @@ class StationsListAppWidgetFactory implements RemoteViewsService.RemoteViewsFact
         // In onCreate() you setup any connections / cursors to your data source. Heavy lifting,
         // for example downloading or creating content etc, should be deferred to onDataSetChanged()
         // or getViewAt(). Taking more than 20 seconds in this call will result in an ANR.
-        stationsDataSource = new StationsDataSource(mContext);
-        stations = stationsDataSource.getFavoriteStations();
+        stationsRepository = StationsRepository.getInstance(mContext);
+        /* onCreate() runs on the main thread: the snapshot is loaded by onDataSetChanged(),
+         * which the widget host calls next on a binder thread, the list being empty until then */
     }
 
     @Override
@@ -73,19 +74,25 @@ class StationsListAppWidgetFactory implements RemoteViewsService.RemoteViewsFact
         // in its current state while work is being done here, so you don't need to worry about
         // locking up the widget.
 
-        stations = stationsDataSource.getFavoriteStations();
+        setStations(stationsRepository.getSnapshotBlocking());
     }
 
     @Override
     public void onDestroy() {
         // In onDestroy() you should tear down anything that was setup for your data source,
         // eg. cursors, connections, etc.
-        stations.clear();
+        stations = null;
+        station = null;
+    }
+
+    private void setStations(StationsSnapshot snapshot) {
+        stations = snapshot.getFavoriteStations();
+        station = stations.getTable().newRow();
     }
 
     @Override
     public int getCount() {
-        return stations.size();
+        return stations != null ? stations.size() : 0;
     }
 
     @Override
@@ -93,7 +100,7 @@ class StationsListAppWidgetFactory implements RemoteViewsService.RemoteViewsFact
         // We construct a remote views item based on our widget item xml file, and set the
         // text based on the position.
         RemoteViews rv = new RemoteViews(mContext.getPackageName(), R.layout.app_widget_item);
-        Station mStation = stations.get(position);
+        StationTable.Row mStation = station.moveTo(stations.getRow(position));
         rv.setTextViewText(R.id.widgetStationNameTitle, mStation.getName());
         int bikes = mStation.getFreeBikes();
         if(mStation.getEBikes() != null) {
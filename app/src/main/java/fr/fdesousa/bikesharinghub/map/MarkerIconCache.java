@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.fdesousa.bikesharinghub.map;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.support.v4.content.ContextCompat;
+import android.util.SparseArray;
+
+import be.brunoparmentier.openbikesharing.app.R;
+import be.brunoparmentier.openbikesharing.app.models.Station;
+import be.brunoparmentier.openbikesharing.app.models.StationFillLevel;
+
+/**
+ * Application wide cache of the rasterized station marker and cluster icons, so that markers
+ * share a few bitmaps instead of loading a new drawable each. Icons are keyed by screen
+ * density, which may change with the configuration.
+ */
+public class MarkerIconCache {
+    private static MarkerIconCache instance;
+
+    private static final int[] STATION_ICONS = {
+            R.drawable.ic_station_marker0,
+            R.drawable.ic_station_marker25,
+            R.drawable.ic_station_marker50,
+            R.drawable.ic_station_marker75,
+            R.drawable.ic_station_marker100,
+            R.drawable.ic_station_marker_unavailable
+    };
+
+    private final Context context;
+    private final SparseArray<BitmapDrawable> stationIcons = new SparseArray<>();
+    private final SparseArray<Bitmap> clusterIcons = new SparseArray<>();
+
+    public static synchronized MarkerIconCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new MarkerIconCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private MarkerIconCache(Context context) {
+        this.context = context;
+    }
+
+    public Drawable getStationIcon(Station station) {
+        return getStationIcon(StationFillLevel.of(station));
+    }
+
+    public synchronized Drawable getStationIcon(StationFillLevel fillLevel) {
+        int key = getDensityDpi() * STATION_ICONS.length + fillLevel.ordinal();
+        BitmapDrawable icon = stationIcons.get(key);
+        if (icon == null) {
+            icon = new BitmapDrawable(context.getResources(),
+                    rasterize(context, STATION_ICONS[fillLevel.ordinal()]));
+            stationIcons.put(key, icon);
+        }
+        return icon;
+    }
+
+    public synchronized Bitmap getClusterIcon() {
+        int densityDpi = getDensityDpi();
+        Bitmap icon = clusterIcons.get(densityDpi);
+        if (icon == null) {
+            icon = rasterize(context, R.drawable.marker_cluster);
+            clusterIcons.put(densityDpi, icon);
+        }
+        return icon;
+    }
+
+    private int getDensityDpi() {
+        return context.getResources().getDisplayMetrics().densityDpi;
+    }
+
+    private static Bitmap rasterize(Context context, int drawableId) {
+        Drawable drawable = ContextCompat.getDrawable(context, drawableId);
+        Bitmap bitmap = Bitmap.createBitmap(drawable.getIntrinsicWidth(),
+                drawable.getIntrinsicHeight(), Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        drawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
+        drawable.draw(canvas);
+        return bitmap;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.fdesousa.bikesharinghub.map;
+
+import org.osmdroid.bonuspack.clustering.RadiusMarkerClusterer;
+import org.osmdroid.events.MapListener;
+import org.osmdroid.events.ScrollEvent;
+import org.osmdroid.events.ZoomEvent;
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.overlay.Marker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import be.brunoparmentier.openbikesharing.app.db.AsyncDataSource;
+import be.brunoparmentier.openbikesharing.app.models.Station;
+
+/**
+ * Keeps the markers of a clusterer in sync with the visible region of a map. Only the stations
+ * inside the viewport, extended by a margin, get a marker; markers leaving that region are
+ * recycled for the next stations, and the number of live markers is capped: the query only
+ * reads the stations closest to the center. Stations are queried in the background, and
+ * results of a region left meanwhile are dropped.
+ */
+public class StationMarkersLayer implements MapListener {
+    /* Fraction of the viewport span loaded around it, so that small scrolls need no query */
+    private static final double MARGIN = 0.5;
+    private static final int MAX_MARKERS = 400;
+
+    public interface MarkerBinder {
+        /** Set the position, icon and texts of a new or recycled marker for a station. */
+        void bindMarker(Marker marker, Station station);
+    }
+
+    private final MapView map;
+    private final RadiusMarkerClusterer clusterer;
+    private final AsyncDataSource asyncDataSource;
+    private final MarkerBinder markerBinder;
+
+    private final HashMap<String, Marker> liveMarkers = new HashMap<>();
+    private final ArrayDeque<Marker> recycledMarkers = new ArrayDeque<>();
+    /* region whose stations all have a marker, null when it has to be queried again */
+    private BoundingBox loadedBounds;
+    /* incremented for each query, only the results of the last one are shown */
+    private int queryCount;
+
+    public StationMarkersLayer(MapView map, RadiusMarkerClusterer clusterer,
+                               AsyncDataSource asyncDataSource, MarkerBinder markerBinder) {
+        this.map = map;
+        this.clusterer = clusterer;
+        this.asyncDataSource = asyncDataSource;
+        this.markerBinder = markerBinder;
+    }
+
+    @Override
+    public boolean onScroll(ScrollEvent event) {
+        update();
+        return false;
+    }
+
+    @Override
+    public boolean onZoom(ZoomEvent event) {
+        update();
+        return false;
+    }
+
+    /** Forget the loaded region, e.g. after the stations have been refreshed. */
+    public void invalidate() {
+        loadedBounds = null;
+        update();
+    }
+
+    public void update() {
+        BoundingBox viewport = map.getBoundingBox();
+        if (contains(loadedBounds, viewport)) {
+            return;
+        }
+
+        double latSpan = viewport.getLatNorth() - viewport.getLatSouth();
+        double lonSpan = viewport.getLonEast() - viewport.getLonWest();
+        double latSouth = Math.max(viewport.getLatSouth() - latSpan * MARGIN, -90);
+        double latNorth = Math.min(viewport.getLatNorth() + latSpan * MARGIN, 90);
+        double lonWest = viewport.getLonWest() - lonSpan * MARGIN;
+        double lonEast = viewport.getLonEast() + lonSpan * MARGIN;
+        if (lonSpan < 0 || lonWest < -180 || lonEast > 180) {
+            /* the region crosses the antimeridian */
+            lonWest = -180;
+            lonEast = 180;
+        }
+
+        final BoundingBox bounds = new BoundingBox(latNorth, lonEast, latSouth, lonWest);
+        final int query = ++queryCount;
+        /* beyond the cap, only the stations closest to the center are read */
+        asyncDataSource.getStationsInBounds(latSouth, lonWest, latNorth, lonEast,
+                map.getMapCenter().getLatitude(), map.getMapCenter().getLongitude(), MAX_MARKERS,
+                new AsyncDataSource.Callback<ArrayList<Station>>() {
+                    @Override
+                    public void onResult(ArrayList<Station> stations) {
+                        if (query == queryCount) {
+                            showStations(stations, bounds);
+                        }
+                    }
+                });
+    }
+
+    private void showStations(ArrayList<Station> stations, BoundingBox bounds) {
+        if (stations.size() >= MAX_MARKERS) {
+            /* only part of the region may have markers, query again on the next move */
+            loadedBounds = null;
+        } else {
+            loadedBounds = bounds;
+        }
+
+        HashMap<String, Station> visibleStations = new HashMap<>(stations.size() * 2);
+        for (Station station : stations) {
+            visibleStations.put(station.getId(), station);
+        }
+
+        /* recycle the markers of the stations that left the region */
+        Iterator<Map.Entry<String, Marker>> iterator = liveMarkers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Marker> entry = iterator.next();
+            if (!visibleStations.containsKey(entry.getKey())) {
+                Marker marker = entry.getValue();
+                marker.closeInfoWindow();
+                recycledMarkers.push(marker);
+                iterator.remove();
+            }
+        }
+        /* markers in excess of the cap are not needed anymore */
+        while (recycledMarkers.size() > MAX_MARKERS - liveMarkers.size()) {
+            recycledMarkers.pop().onDetach(map);
+        }
+
+        for (Station station : stations) {
+            Marker marker = liveMarkers.get(station.getId());
+            if (marker == null) {
+                marker = recycledMarkers.isEmpty() ? new Marker(map) : recycledMarkers.pop();
+                liveMarkers.put(station.getId(), marker);
+            }
+            /* markers that stay are bound again to refresh their counts */
+            markerBinder.bindMarker(marker, station);
+        }
+
+        ArrayList<Marker> items = clusterer.getItems();
+        items.clear();
+        items.addAll(liveMarkers.values());
+        clusterer.invalidate();
+        map.invalidate();
+    }
+
+    private static boolean contains(BoundingBox outer, BoundingBox inner) {
+        return outer != null
+                && inner.getLatNorth() <= outer.getLatNorth()
+                && inner.getLatSouth() >= outer.getLatSouth()
+                && inner.getLonWest() >= outer.getLonWest()
+                && inner.getLonEast() <= outer.getLonEast()
+                && inner.getLonWest() <= inner.getLonEast();
+    }
+}
@@ -20,34 +20,73 @@ package fr.fdesousa.bikesharinghub.models;
 
 import android.app.Application;
 import android.arch.lifecycle.AndroidViewModel;
+import android.arch.lifecycle.LiveData;
+import android.arch.lifecycle.MutableLiveData;
+import android.arch.lifecycle.Observer;
+import android.support.annotation.Nullable;
 
-import java.util.ArrayList;
+import java.util.List;
 
-import be.brunoparmentier.openbikesharing.app.db.StationsDataSource;
+import be.brunoparmentier.openbikesharing.app.db.AsyncDataSource;
+import be.brunoparmentier.openbikesharing.app.db.StationsRepository;
 import be.brunoparmentier.openbikesharing.app.models.Station;
+import be.brunoparmentier.openbikesharing.app.models.StationsSnapshot;
 
+/**
+ * Stations and favorite stations of the shared snapshot, updated each time the repository
+ * replaces it, e.g. after a refresh or once a favorite has been toggled.
+ */
 public class StationsListViewModel extends AndroidViewModel {
 
-    private ArrayList<Station> stations;
-    private StationsDataSource stationsDataSource;
+    private final MutableLiveData<List<Station>> stations = new MutableLiveData<>();
+    private final MutableLiveData<List<Station>> favoriteStations = new MutableLiveData<>();
+    private final StationsRepository stationsRepository;
+    /* version of the last snapshot given to the lists */
+    private long version = -1;
+
+    private final Observer<StationsSnapshot> snapshotObserver = new Observer<StationsSnapshot>() {
+        @Override
+        public void onChanged(@Nullable StationsSnapshot snapshot) {
+            /* the snapshot given by loadSnapshot() may be older than a posted one */
+            if (snapshot == null || snapshot.getVersion() < version) {
+                return;
+            }
+            version = snapshot.getVersion();
+            /* a snapshot with new favorites keeps the list of its stations */
+            if (stations.getValue() != snapshot.getStations()) {
+                stations.setValue(snapshot.getStations());
+            }
+            if (favoriteStations.getValue() != snapshot.getFavoriteStations()) {
+                favoriteStations.setValue(snapshot.getFavoriteStations());
+            }
+        }
+    };
 
     public StationsListViewModel(Application application) {
         super(application);
-        stationsDataSource = new StationsDataSource(application);
+        stationsRepository = StationsRepository.getInstance(application);
+        stationsRepository.getSnapshotLiveData().observeForever(snapshotObserver);
+        /* posted to the observer as well if it had to be loaded */
+        stationsRepository.loadSnapshot(new AsyncDataSource.Callback<StationsSnapshot>() {
+            @Override
+            public void onResult(StationsSnapshot snapshot) {
+                snapshotObserver.onChanged(snapshot);
+            }
+        });
     }
 
-    public ArrayList<Station> getStations() {
-        if(stations == null) {
-            stations = stationsDataSource.getStations();
-        }
+    /* Stations of the shared snapshot, set once it has been loaded */
+    public LiveData<List<Station>> getStations() {
         return stations;
-   }
+    }
 
-    public ArrayList<Station> getFavoriteStations() {
-        if(stations == null) {
-            stations = stationsDataSource.getFavoriteStations();
-        }
-        return stations;
-   }
+    /* Favorite stations of the shared snapshot, set once it has been loaded */
+    public LiveData<List<Station>> getFavoriteStations() {
+        return favoriteStations;
+    }
 
+    @Override
+    protected void onCleared() {
+        stationsRepository.getSnapshotLiveData().removeObserver(snapshotObserver);
+    }
 }
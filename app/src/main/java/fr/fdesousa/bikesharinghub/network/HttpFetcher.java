@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.fdesousa.bikesharinghub.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Open the HTTP connections of the application with the same timeouts and compression.
+ * Bodies must be read until the end and closed, rather than disconnecting, so that the
+ * underlying connection can be kept alive and reused by the next request to the same host.
+ */
+public class HttpFetcher {
+    public static final int CONNECT_TIMEOUT = 10000; // ms
+    public static final int READ_TIMEOUT = 20000; // ms
+
+    /**
+     * Validators of a response, sent back with the next request of the same URL so that the
+     * server can answer "not modified" without a body.
+     */
+    public static class Validators {
+        private final String eTag;
+        private final String lastModified;
+
+        public Validators(String eTag, String lastModified) {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+    }
+
+    private HttpFetcher() {
+    }
+
+    public static HttpURLConnection open(String url) throws IOException {
+        return open(url, null);
+    }
+
+    public static HttpURLConnection open(String url, Validators validators) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setConnectTimeout(CONNECT_TIMEOUT);
+        conn.setReadTimeout(READ_TIMEOUT);
+        conn.setRequestProperty("Accept-Encoding", "gzip");
+        if (validators != null) {
+            if (validators.getETag() != null) {
+                conn.setRequestProperty("If-None-Match", validators.getETag());
+            }
+            if (validators.getLastModified() != null) {
+                conn.setRequestProperty("If-Modified-Since", validators.getLastModified());
+            }
+        }
+        return conn;
+    }
+
+    /* null if the response cannot be validated later */
+    public static Validators getValidators(HttpURLConnection conn) {
+        String eTag = conn.getHeaderField("ETag");
+        String lastModified = conn.getHeaderField("Last-Modified");
+        if (eTag == null && lastModified == null) {
+            return null;
+        }
+        return new Validators(eTag, lastModified);
+    }
+
+    /* As Accept-Encoding is set explicitly, the body has to be decompressed here */
+    public static InputStream getInputStream(HttpURLConnection conn) throws IOException {
+        InputStream input = conn.getInputStream();
+        if ("gzip".equalsIgnoreCase(conn.getContentEncoding())) {
+            return new GZIPInputStream(input);
+        }
+        return input;
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.fdesousa.bikesharinghub.network;
+
+import android.appwidget.AppWidgetManager;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.preference.PreferenceManager;
+import android.util.Log;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import be.brunoparmentier.openbikesharing.app.db.AsyncDataSource;
+import be.brunoparmentier.openbikesharing.app.db.HttpCacheDataSource;
+import be.brunoparmentier.openbikesharing.app.db.NetworksDataSource;
+import be.brunoparmentier.openbikesharing.app.db.StationsDataSource;
+import be.brunoparmentier.openbikesharing.app.db.StationsRepository;
+import be.brunoparmentier.openbikesharing.app.models.BikeNetwork;
+import be.brunoparmentier.openbikesharing.app.models.BikeNetworkInfo;
+import be.brunoparmentier.openbikesharing.app.models.Station;
+import be.brunoparmentier.openbikesharing.app.models.StationsSnapshot;
+import be.brunoparmentier.openbikesharing.app.parsers.BikeNetworkParser;
+import be.brunoparmentier.openbikesharing.app.parsers.BikeNetworksListParser;
+import be.brunoparmentier.openbikesharing.app.widgets.StationsListAppWidgetProvider;
+
+/**
+ * Single entry point to download data from the API, shared by the activities and the widget.
+ * Networks are downloaded in parallel on a bounded pool of connections and stored on the
+ * database thread of AsyncDataSource. Requests are conditional, networks not modified since the last refresh
+ * are neither parsed nor stored. A refresh requested while another one is in progress, or has just
+ * finished, joins it instead of downloading and storing the same data again.
+ *
+ * Its methods and listeners are called on the main thread.
+ */
+public class StationsRefreshManager {
+    private static final String TAG = StationsRefreshManager.class.getSimpleName();
+    private static StationsRefreshManager instance;
+
+    private static final String DEFAULT_API_URL = "https://api.citybik.es/v2/";
+    private static final String PREF_KEY_API_URL = "pref_api_url";
+    private static final String PREF_KEY_STRIP_ID_STATION = "pref_strip_id_station";
+    private static final String PREF_KEY_DB_LAST_UPDATE = "db_last_update";
+    private static final String PREF_KEY_CATALOGUE_URL = "networks_catalogue_url";
+    private static final String PREF_KEY_CATALOGUE_LAST_UPDATE = "networks_catalogue_last_update";
+
+    public static final int MAX_CONNECTIONS = 4;
+    /* A refresh finished for less than this is given to new requests as is */
+    private static final long REUSE_DELAY = 1000; // ms
+    /* The networks of the API rarely change */
+    public static final long CATALOGUE_TTL = 24 * 60 * 60 * 1000; // ms
+
+    public interface Listener {
+        /* Called each time a network has been downloaded and parsed */
+        void onNetworkRefreshed(BikeNetwork bikeNetwork);
+
+        /* Called once every network has been processed and stored, with all the stored stations */
+        void onRefreshFinished(List<Station> stations, int refreshedNetworks, int failedNetworks);
+    }
+
+    public interface NetworksListListener {
+        /* Called with the local copy of the networks of the API, then with the downloaded
+         * networks if they had to be fetched, or with null if none could be loaded */
+        void onNetworksListFetched(ArrayList<BikeNetworkInfo> networks);
+    }
+
+    private final Context context;
+    private final ExecutorService downloadExecutor;
+    /* runs the stores, in order with the other reads and writes of the database */
+    private final AsyncDataSource asyncDataSource;
+    private final Handler mainHandler;
+    private final StationsDataSource stationsDataSource;
+    private final NetworksDataSource networksDataSource;
+    private final HttpCacheDataSource httpCacheDataSource;
+
+    private Refresh currentRefresh;
+
+    private static class NetworkResponse {
+        final String url;
+        /* null if the network has not been modified, or could not be fetched */
+        BikeNetwork bikeNetwork;
+        boolean notModified;
+        HttpFetcher.Validators validators;
+
+        NetworkResponse(String url) {
+            this.url = url;
+        }
+    }
+
+    private static class Refresh {
+        final ArrayList<Listener> listeners = new ArrayList<>();
+        final ArrayList<Station> downloadedStations = new ArrayList<>();
+        final ArrayList<NetworkResponse> downloadedResponses = new ArrayList<>();
+        int remainingNetworks;
+        int refreshedNetworks;
+        int failedNetworks;
+        /* set once finished */
+        List<Station> stations;
+        long finishedAt = -1;
+    }
+
+    public static synchronized StationsRefreshManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new StationsRefreshManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private StationsRefreshManager(Context context) {
+        this.context = context;
+        downloadExecutor = Executors.newFixedThreadPool(MAX_CONNECTIONS);
+        asyncDataSource = AsyncDataSource.getInstance(context);
+        mainHandler = new Handler(Looper.getMainLooper());
+        stationsDataSource = new StationsDataSource(context);
+        networksDataSource = new NetworksDataSource(context);
+        httpCacheDataSource = new HttpCacheDataSource(context);
+    }
+
+    private String getApiUrl() {
+        return PreferenceManager.getDefaultSharedPreferences(context)
+                .getString(PREF_KEY_API_URL, DEFAULT_API_URL);
+    }
+
+    /**
+     * Refresh the stations of the selected networks. If no network is selected, the refresh
+     * finishes at once with no stations and no refreshed network.
+     */
+    public void refreshStations(final Listener listener) {
+        if (currentRefresh != null) {
+            if (currentRefresh.finishedAt == -1) {
+                final Refresh refresh = currentRefresh;
+                refresh.listeners.add(listener);
+                /* networks downloaded before joining are given first, as any later one is
+                 * posted after this */
+                final ArrayList<NetworkResponse> responses = new ArrayList<>(refresh.downloadedResponses);
+                if (!responses.isEmpty()) {
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            for (NetworkResponse response : responses) {
+                                if (refresh.listeners.contains(listener)) {
+                                    listener.onNetworkRefreshed(response.bikeNetwork);
+                                }
+                            }
+                        }
+                    });
+                }
+                return;
+            }
+            if (SystemClock.elapsedRealtime() - currentRefresh.finishedAt < REUSE_DELAY) {
+                final Refresh refresh = currentRefresh;
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onRefreshFinished(refresh.stations, refresh.refreshedNetworks,
+                                refresh.failedNetworks);
+                    }
+                });
+                return;
+            }
+        }
+
+        final Refresh refresh = new Refresh();
+        refresh.listeners.add(listener);
+        currentRefresh = refresh;
+
+        final String apiUrl = getApiUrl();
+        final boolean stripIdFromStationName = PreferenceManager.getDefaultSharedPreferences(context)
+                .getBoolean(PREF_KEY_STRIP_ID_STATION, false);
+        /* the selected networks are read from the database in the background */
+        asyncDataSource.execute(new Runnable() {
+            @Override
+            public void run() {
+                final ArrayList<String> networksId = networksDataSource.getNetworksId();
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        startRefresh(refresh, networksId, apiUrl, stripIdFromStationName);
+                    }
+                });
+            }
+        });
+    }
+
+    private void startRefresh(final Refresh refresh, ArrayList<String> networksId, String apiUrl,
+                              final boolean stripIdFromStationName) {
+        if (networksId.isEmpty()) {
+            finish(refresh, null);
+            return;
+        }
+        refresh.remainingNetworks = networksId.size();
+        for (String id : networksId) {
+            final String stationsUrl = apiUrl + "networks/" + id;
+            downloadExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final NetworkResponse response = fetchNetwork(stationsUrl, stripIdFromStationName);
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            onNetworkFetched(refresh, response);
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    /* The listener won't be called anymore, e.g. because its activity is destroyed */
+    public void removeListener(Listener listener) {
+        if (currentRefresh != null) {
+            currentRefresh.listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Load the networks of the API from their local copy, which is revalidated in the
+     * background once older than CATALOGUE_TTL.
+     */
+    public void loadNetworksList(final NetworksListListener listener) {
+        final String networksUrl = getApiUrl() + "networks";
+        asyncDataSource.execute(new Runnable() {
+            @Override
+            public void run() {
+                SharedPreferences settings = PreferenceManager.getDefaultSharedPreferences(context);
+                ArrayList<BikeNetworkInfo> catalogue = null;
+                /* a catalogue fetched from another API is not shown */
+                if (networksUrl.equals(settings.getString(PREF_KEY_CATALOGUE_URL, null))) {
+                    catalogue = networksDataSource.getCatalogue();
+                    if (catalogue.isEmpty()) {
+                        catalogue = null;
+                    }
+                }
+                long lastUpdate = settings.getLong(PREF_KEY_CATALOGUE_LAST_UPDATE, -1);
+
+                if (catalogue != null) {
+                    postNetworksList(listener, catalogue);
+                    if (System.currentTimeMillis() - lastUpdate < CATALOGUE_TTL) {
+                        return;
+                    }
+                }
+                final boolean hasCatalogue = catalogue != null;
+                downloadExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        fetchNetworksList(networksUrl, hasCatalogue, listener);
+                    }
+                });
+            }
+        });
+    }
+
+    private void fetchNetworksList(final String networksUrl, boolean hasCatalogue,
+                                   final NetworksListListener listener) {
+        try {
+            HttpURLConnection conn = HttpFetcher.open(networksUrl,
+                    hasCatalogue ? httpCacheDataSource.getValidators(networksUrl) : null);
+            int responseCode = conn.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                asyncDataSource.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        setCatalogueUpdated(networksUrl);
+                    }
+                });
+                return;
+            }
+            if (responseCode == HttpURLConnection.HTTP_OK) {
+                final HttpFetcher.Validators validators = HttpFetcher.getValidators(conn);
+                InputStream input = HttpFetcher.getInputStream(conn);
+                final ArrayList<BikeNetworkInfo> networks;
+                try {
+                    networks = new BikeNetworksListParser(input).getNetworks();
+                } finally {
+                    input.close();
+                }
+                asyncDataSource.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        networksDataSource.storeCatalogue(networks);
+                        httpCacheDataSource.storeValidators(networksUrl, validators);
+                        setCatalogueUpdated(networksUrl);
+                    }
+                });
+                postNetworksList(listener, networks);
+                return;
+            }
+            Log.e(TAG, networksUrl + ": HTTP " + responseCode);
+            conn.disconnect();
+        } catch (ParseException e) {
+            Log.e(TAG, "Error retreiving networks list: " + e.getMessage());
+        } catch (Exception e) {
+            Log.e(TAG, networksUrl + ": " + e.getClass().getSimpleName() + " (" + e.getMessage() + ")");
+        }
+
+        /* the local copy, if any, stays shown */
+        if (!hasCatalogue) {
+            postNetworksList(listener, null);
+        }
+    }
+
+    private void setCatalogueUpdated(String networksUrl) {
+        PreferenceManager.getDefaultSharedPreferences(context).edit()
+                .putString(PREF_KEY_CATALOGUE_URL, networksUrl)
+                .putLong(PREF_KEY_CATALOGUE_LAST_UPDATE, System.currentTimeMillis())
+                .apply();
+    }
+
+    private void postNetworksList(final NetworksListListener listener,
+                                  final ArrayList<BikeNetworkInfo> networks) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                listener.onNetworksListFetched(networks);
+            }
+        });
+    }
+
+    private void onNetworkFetched(final Refresh refresh, NetworkResponse response) {
+        if (response.bikeNetwork != null) {
+            refresh.refreshedNetworks++;
+            refresh.downloadedStations.addAll(response.bikeNetwork.getStations());
+            refresh.downloadedResponses.add(response);
+            for (Listener listener : new ArrayList<>(refresh.listeners)) {
+                listener.onNetworkRefreshed(response.bikeNetwork);
+            }
+        } else if (response.notModified) {
+            /* stations stored for this network are up to date */
+            refresh.refreshedNetworks++;
+        } else {
+            refresh.failedNetworks++;
+        }
+        if (--refresh.remainingNetworks > 0) {
+            return;
+        }
+
+        if (refresh.refreshedNetworks == 0) {
+            finish(refresh, null);
+            return;
+        }
+        asyncDataSource.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!refresh.downloadedStations.isEmpty()) {
+                    stationsDataSource.storeStations(refresh.downloadedStations);
+                }
+                /* the stored data now matches these responses, except for the networks
+                 * deselected during the refresh, whose stations have just been deleted */
+                ArrayList<String> networksId = networksDataSource.getNetworksId();
+                for (NetworkResponse response : refresh.downloadedResponses) {
+                    if (networksId.contains(response.bikeNetwork.getId())) {
+                        httpCacheDataSource.storeValidators(response.url, response.validators);
+                    }
+                }
+                PreferenceManager.getDefaultSharedPreferences(context).edit()
+                        .putLong(PREF_KEY_DB_LAST_UPDATE, System.currentTimeMillis())
+                        .apply();
+                /* stations of the networks that failed are still in the database */
+                final StationsSnapshot snapshot = StationsRepository.getInstance(context).reload();
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        finish(refresh, snapshot.getStations());
+                        notifyWidgets();
+                    }
+                });
+            }
+        });
+    }
+
+    private void finish(Refresh refresh, List<Station> stations) {
+        refresh.stations = stations;
+        refresh.finishedAt = SystemClock.elapsedRealtime();
+        refresh.downloadedStations.clear();
+        refresh.downloadedResponses.clear();
+        for (Listener listener : new ArrayList<>(refresh.listeners)) {
+            listener.onRefreshFinished(stations, refresh.refreshedNetworks, refresh.failedNetworks);
+        }
+        refresh.listeners.clear();
+    }
+
+    private void notifyWidgets() {
+        Intent refreshWidgetIntent = new Intent(context, StationsListAppWidgetProvider.class);
+        refreshWidgetIntent.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
+        refreshWidgetIntent.putExtra(StationsListAppWidgetProvider.EXTRA_REFRESH_LIST_ONLY, true);
+        context.sendBroadcast(refreshWidgetIntent);
+    }
+
+    private NetworkResponse fetchNetwork(String stationsUrl, boolean stripIdFromStationName) {
+        NetworkResponse response = new NetworkResponse(stationsUrl);
+        try {
+            HttpURLConnection conn = HttpFetcher.open(stationsUrl,
+                    httpCacheDataSource.getValidators(stationsUrl));
+            int responseCode = conn.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                /* nothing to parse nor to store */
+                response.notModified = true;
+                return response;
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                Log.e(TAG, stationsUrl + ": HTTP " + responseCode);
+                conn.disconnect();
+                return response;
+            }
+            response.validators = HttpFetcher.getValidators(conn);
+            /* parse result while it is downloaded */
+            InputStream input = HttpFetcher.getInputStream(conn);
+            try {
+                response.bikeNetwork = new BikeNetworkParser(input, stripIdFromStationName).getNetwork();
+            } finally {
+                input.close();
+            }
+        } catch (ParseException e) {
+            Log.e(TAG, "Error retreiving data of network " + stationsUrl + " : " + e.getMessage());
+        } catch (Exception e) {
+            Log.e(TAG, stationsUrl + ": " + e.getClass().getSimpleName() + " (" + e.getMessage() + ")");
+        }
+        return response;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.fdesousa.bikesharinghub.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import be.brunoparmentier.openbikesharing.app.models.BikeNetwork;
+import be.brunoparmentier.openbikesharing.app.models.BikeNetworkInfo;
+import be.brunoparmentier.openbikesharing.app.parsers.BikeNetworkParser;
+import be.brunoparmentier.openbikesharing.app.parsers.BikeNetworksListParser;
+import fr.fdesousa.bikesharinghub.fixtures.NetworkPayloadGenerator;
+
+/**
+ * Parsing of the networks list and of a network, from the bytes of the HTTP response as done
+ * by the refresh, and from a string.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    /* stations of the network, and networks of the list */
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private String network;
+    private byte[] networkBytes;
+    private byte[] networksListBytes;
+
+    @Setup
+    public void setUp() {
+        NetworkPayloadGenerator generator = new NetworkPayloadGenerator().setStations(size);
+        network = generator.network("villo");
+        networkBytes = network.getBytes(StandardCharsets.UTF_8);
+        networksListBytes = generator.networksList(NetworkPayloadGenerator.networkIds(size))
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public BikeNetwork parseNetworkStream() throws IOException, ParseException {
+        return new BikeNetworkParser(new ByteArrayInputStream(networkBytes), false).getNetwork();
+    }
+
+    @Benchmark
+    public BikeNetwork parseNetworkStreamStrippingIds() throws IOException, ParseException {
+        return new BikeNetworkParser(new ByteArrayInputStream(networkBytes), true).getNetwork();
+    }
+
+    @Benchmark
+    public BikeNetwork parseNetworkString() throws ParseException {
+        return new BikeNetworkParser(network, false).getNetwork();
+    }
+
+    @Benchmark
+    public ArrayList<BikeNetworkInfo> parseNetworksList() throws IOException, ParseException {
+        return new BikeNetworksListParser(new ByteArrayInputStream(networksListBytes)).getNetworks();
+    }
+}
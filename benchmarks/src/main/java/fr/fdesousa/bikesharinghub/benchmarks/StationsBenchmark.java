@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.fdesousa.bikesharinghub.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import be.brunoparmentier.openbikesharing.app.models.Station;
+import be.brunoparmentier.openbikesharing.app.models.StationsSnapshot;
+import be.brunoparmentier.openbikesharing.app.parsers.BikeNetworkParser;
+import fr.fdesousa.bikesharinghub.fixtures.NetworkPayloadGenerator;
+import fr.fdesousa.bikesharinghub.index.StationsGridIndex;
+import fr.fdesousa.bikesharinghub.index.StationsSearchIndex;
+
+/**
+ * Work done on the stations once downloaded: sorting them by name, building the snapshot
+ * shared by the screens, the nearby stations of setNearbyStations and the search of loadData
+ * in StationsListActivity. Index builds are measured apart from queries, as they only happen
+ * once per refresh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StationsBenchmark {
+    /* same radius as the nearby stations tab */
+    private static final double NEARBY_RADIUS = 1000; // meters
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private NetworkPayloadGenerator generator;
+    private ArrayList<Station> stations;
+    private ArrayList<Station> sortedStations;
+    private List<String> favoriteIds;
+    private StationsGridIndex gridIndex;
+    private StationsSearchIndex searchIndex;
+    private int query;
+
+    @Setup
+    public void setUp() throws ParseException {
+        generator = new NetworkPayloadGenerator().setStations(size);
+        stations = new BikeNetworkParser(generator.network("villo"), true)
+                .getNetwork().getStations();
+        sortedStations = new ArrayList<>(stations);
+        Collections.sort(sortedStations);
+        favoriteIds = new ArrayList<>();
+        for (int i = 0; i < stations.size(); i += 50) {
+            favoriteIds.add(stations.get(i).getId());
+        }
+        gridIndex = new StationsGridIndex(sortedStations);
+        searchIndex = new StationsSearchIndex(sortedStations);
+    }
+
+    @Benchmark
+    public List<Station> sortByName() {
+        ArrayList<Station> sorted = new ArrayList<>(stations);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    @Benchmark
+    public StationsSnapshot buildSnapshot() {
+        return new StationsSnapshot(1, sortedStations, favoriteIds);
+    }
+
+    @Benchmark
+    public StationsGridIndex buildNearbyIndex() {
+        return new StationsGridIndex(sortedStations);
+    }
+
+    @Benchmark
+    public List<Station> findNearby() {
+        return gridIndex.findWithinRadius(generator.getLatitude(), generator.getLongitude(),
+                NEARBY_RADIUS);
+    }
+
+    @Benchmark
+    public StationsSearchIndex buildSearchIndex() {
+        return new StationsSearchIndex(sortedStations);
+    }
+
+    /* queries alternate so that each search starts over rather than narrowing the previous one */
+    @Benchmark
+    public List<Station> search() {
+        return searchIndex.search((query++ & 1) == 0 ? "gare" : "place");
+    }
+}
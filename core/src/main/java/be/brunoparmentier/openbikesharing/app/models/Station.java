@@ -91,6 +91,10 @@ public class Station implements Serializable, Comparable<Station> {
         return networkId;
     }
 
+    public void setNetworkId(String networkId) {
+        this.networkId = networkId;
+    }
+
     public String getAddress() {
         return address;
     }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.brunoparmentier.openbikesharing.app.models;
+
+/**
+ * How full of bikes a station is, as shown by its marker.
+ */
+public enum StationFillLevel {
+    EMPTY, LOW, HALF, HIGH, FULL, UNAVAILABLE;
+
+    public static StationFillLevel of(Station station) {
+        int emptySlots = station.getEmptySlots();
+        int freeBikes = station.getFreeBikes();
+
+        if ((emptySlots == 0 && freeBikes == 0) || station.getStatus() == StationStatus.CLOSED) {
+            return UNAVAILABLE;
+        }
+        if (freeBikes == 0) {
+            return EMPTY;
+        }
+        /* the number of empty slots is -1 when unknown, the station is then shown as full */
+        if (emptySlots == 0 || emptySlots == -1) {
+            return FULL;
+        }
+        double ratio = (double) freeBikes / (double) (freeBikes + emptySlots);
+        if (ratio <= 0.3) {
+            return LOW;
+        } else if (ratio < 0.7) {
+            return HALF;
+        } else {
+            return HIGH;
+        }
+    }
+}
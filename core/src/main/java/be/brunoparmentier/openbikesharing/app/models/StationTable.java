@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.brunoparmentier.openbikesharing.app.models;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable column store of stations: one array per field instead of one object per station.
+ * Counts and coordinates are kept as primitives, the optional flags and status are packed in a
+ * byte per station, and network ids are stored once. Stations are read by row, either through
+ * a reusable {@link Row} or as a {@link Station} built on demand.
+ */
+public final class StationTable {
+    /* two bits per optional boolean: unknown, false or true */
+    private static final int BANKING_SHIFT = 0;
+    private static final int BONUS_SHIFT = 2;
+    /* status ordinal + 1, 0 when unknown */
+    private static final int STATUS_SHIFT = 4;
+    private static final int E_BIKES_KNOWN = 1 << 6;
+
+    private static final int UNKNOWN = 0;
+    private static final int FALSE = 1;
+    private static final int TRUE = 2;
+    private static final StationStatus[] STATUSES = StationStatus.values();
+
+    private final int size;
+    private final String[] ids;
+    private final String[] names;
+    private final String[] lastUpdates;
+    private final String[] addresses;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] freeBikes;
+    private final int[] emptySlots;
+    private final int[] eBikes;
+    private final byte[] flags;
+    private final String[] networkIds;
+    private final short[] networks;
+    /* rows ordered by id, to find a station by binary search */
+    private final int[] rowsById;
+    private final Rows allRows;
+
+    public StationTable(List<Station> stations) {
+        size = stations.size();
+        ids = new String[size];
+        names = new String[size];
+        lastUpdates = new String[size];
+        addresses = new String[size];
+        latitudes = new double[size];
+        longitudes = new double[size];
+        freeBikes = new int[size];
+        emptySlots = new int[size];
+        eBikes = new int[size];
+        flags = new byte[size];
+        networks = new short[size];
+
+        HashMap<String, Integer> networkIndexes = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            Station station = stations.get(i);
+            ids[i] = station.getId();
+            names[i] = station.getName();
+            lastUpdates[i] = station.getLastUpdate();
+            addresses[i] = station.getAddress();
+            latitudes[i] = station.getLatitude();
+            longitudes[i] = station.getLongitude();
+            freeBikes[i] = station.getFreeBikes();
+            emptySlots[i] = station.getEmptySlots();
+
+            int flag = (encode(station.isBanking()) << BANKING_SHIFT)
+                    | (encode(station.isBonus()) << BONUS_SHIFT);
+            if (station.getStatus() != null) {
+                flag |= (station.getStatus().ordinal() + 1) << STATUS_SHIFT;
+            }
+            if (station.getEBikes() != null) {
+                flag |= E_BIKES_KNOWN;
+                eBikes[i] = station.getEBikes();
+            }
+            flags[i] = (byte) flag;
+
+            Integer network = networkIndexes.get(station.getNetworkId());
+            if (network == null) {
+                network = networkIndexes.size();
+                networkIndexes.put(station.getNetworkId(), network);
+            }
+            networks[i] = network.shortValue();
+        }
+        networkIds = new String[networkIndexes.size()];
+        for (HashMap.Entry<String, Integer> entry : networkIndexes.entrySet()) {
+            networkIds[entry.getValue()] = entry.getKey();
+        }
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                return ids[first].compareTo(ids[second]);
+            }
+        });
+        rowsById = new int[size];
+        for (int i = 0; i < size; i++) {
+            rowsById[i] = order[i];
+        }
+        allRows = new Rows(this, null);
+    }
+
+    private static int encode(Boolean value) {
+        return value == null ? UNKNOWN : (value ? TRUE : FALSE);
+    }
+
+    private static Boolean decode(int value) {
+        return value == UNKNOWN ? null : value == TRUE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Row of the station with the given id, or -1 if there is no such station.
+     */
+    public int indexOf(String stationId) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = ids[rowsById[middle]].compareTo(stationId);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return rowsById[middle];
+            }
+        }
+        return -1;
+    }
+
+    public String getId(int row) {
+        return ids[row];
+    }
+
+    public String getName(int row) {
+        return names[row];
+    }
+
+    public String getLastUpdate(int row) {
+        return lastUpdates[row];
+    }
+
+    public String getAddress(int row) {
+        return addresses[row];
+    }
+
+    public double getLatitude(int row) {
+        return latitudes[row];
+    }
+
+    public double getLongitude(int row) {
+        return longitudes[row];
+    }
+
+    public int getFreeBikes(int row) {
+        return freeBikes[row];
+    }
+
+    public int getEmptySlots(int row) {
+        return emptySlots[row];
+    }
+
+    public String getNetworkId(int row) {
+        return networkIds[networks[row]];
+    }
+
+    public Boolean isBanking(int row) {
+        return decode((flags[row] >> BANKING_SHIFT) & 3);
+    }
+
+    public Boolean isBonus(int row) {
+        return decode((flags[row] >> BONUS_SHIFT) & 3);
+    }
+
+    public StationStatus getStatus(int row) {
+        int status = (flags[row] >> STATUS_SHIFT) & 3;
+        return status == 0 ? null : STATUSES[status - 1];
+    }
+
+    public Integer getEBikes(int row) {
+        return (flags[row] & E_BIKES_KNOWN) != 0 ? eBikes[row] : null;
+    }
+
+    /**
+     * New station holding the values of the given row.
+     */
+    public Station getStation(int row) {
+        Station station = new Station(ids[row], names[row], lastUpdates[row],
+                latitudes[row], longitudes[row], freeBikes[row], emptySlots[row], getNetworkId(row));
+        station.setAddress(addresses[row]);
+        Boolean banking = isBanking(row);
+        if (banking != null) {
+            station.setBanking(banking);
+        }
+        Boolean bonus = isBonus(row);
+        if (bonus != null) {
+            station.setBonus(bonus);
+        }
+        station.setStatus(getStatus(row));
+        Integer stationEBikes = getEBikes(row);
+        if (stationEBikes != null) {
+            station.setEBikes(stationEBikes);
+        }
+        return station;
+    }
+
+    /**
+     * Every station, in the order of the table.
+     */
+    public Rows asList() {
+        return allRows;
+    }
+
+    /**
+     * The stations of the given rows, in that order. The array is kept, not copied.
+     */
+    public Rows rows(int[] rows) {
+        return new Rows(this, rows);
+    }
+
+    public Row newRow() {
+        return new Row(this);
+    }
+
+    /**
+     * Read-only list of some rows of a table. Each get builds a new station, so callers going
+     * through many rows should rather read them from the table or through a {@link Row}.
+     */
+    public static final class Rows extends AbstractList<Station> implements RandomAccess {
+        private final StationTable table;
+        /* null for every row of the table */
+        private final int[] rows;
+
+        private Rows(StationTable table, int[] rows) {
+            this.table = table;
+            this.rows = rows;
+        }
+
+        public StationTable getTable() {
+            return table;
+        }
+
+        /**
+         * Row in the table of the station at the given position.
+         */
+        public int getRow(int position) {
+            if (position < 0 || position >= size()) {
+                throw new IndexOutOfBoundsException("Position " + position + ", size " + size());
+            }
+            return rows == null ? position : rows[position];
+        }
+
+        @Override
+        public Station get(int position) {
+            return table.getStation(getRow(position));
+        }
+
+        @Override
+        public int size() {
+            return rows == null ? table.size : rows.length;
+        }
+    }
+
+    /**
+     * Reusable view on one row of a table, to read stations without allocating them.
+     */
+    public static final class Row {
+        private final StationTable table;
+        private int row;
+
+        private Row(StationTable table) {
+            this.table = table;
+        }
+
+        public Row moveTo(int row) {
+            this.row = row;
+            return this;
+        }
+
+        public String getId() {
+            return table.getId(row);
+        }
+
+        public String getName() {
+            return table.getName(row);
+        }
+
+        public String getLastUpdate() {
+            return table.getLastUpdate(row);
+        }
+
+        public String getAddress() {
+            return table.getAddress(row);
+        }
+
+        public double getLatitude() {
+            return table.getLatitude(row);
+        }
+
+        public double getLongitude() {
+            return table.getLongitude(row);
+        }
+
+        public int getFreeBikes() {
+            return table.getFreeBikes(row);
+        }
+
+        public int getEmptySlots() {
+            return table.getEmptySlots(row);
+        }
+
+        public String getNetworkId() {
+            return table.getNetworkId(row);
+        }
+
+        public Boolean isBanking() {
+            return table.isBanking(row);
+        }
+
+        public Boolean isBonus() {
+            return table.isBonus(row);
+        }
+
+        public StationStatus getStatus() {
+            return table.getStatus(row);
+        }
+
+        public Integer getEBikes() {
+            return table.getEBikes(row);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.brunoparmentier.openbikesharing.app.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable copy of the stored stations, sorted by name, with the favorite ones. It is shared
+ * by every screen, so neither its lists nor its stations may be modified. Each new snapshot
+ * gets a greater version, so that readers can tell whether the stations changed.
+ * Stations are held in a {@link StationTable}, the lists build them on access.
+ */
+public final class StationsSnapshot {
+    private final long version;
+    private final StationTable table;
+    private final StationTable.Rows favoriteStations;
+    private final Set<String> favoriteIds;
+
+    /**
+     * @param stations the stations, sorted by name, only read while building the snapshot
+     */
+    public StationsSnapshot(long version, ArrayList<Station> stations, Collection<String> favoriteIds) {
+        this(version, new StationTable(stations), favoriteIds);
+    }
+
+    private StationsSnapshot(long version, StationTable table, Collection<String> favoriteIds) {
+        this.version = version;
+        this.table = table;
+        this.favoriteIds = Collections.unmodifiableSet(new HashSet<>(favoriteIds));
+
+        int[] favoriteRows = new int[table.size()];
+        int count = 0;
+        for (int row = 0; row < table.size(); row++) {
+            if (this.favoriteIds.contains(table.getId(row))) {
+                favoriteRows[count++] = row;
+            }
+        }
+        int[] trimmed = new int[count];
+        System.arraycopy(favoriteRows, 0, trimmed, 0, count);
+        this.favoriteStations = table.rows(trimmed);
+    }
+
+    /**
+     * Same stations, sharing their table, with other favorites.
+     */
+    public StationsSnapshot withFavorites(long version, Collection<String> favoriteIds) {
+        return new StationsSnapshot(version, table, favoriteIds);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public StationTable getTable() {
+        return table;
+    }
+
+    public StationTable.Rows getStations() {
+        return table.asList();
+    }
+
+    public StationTable.Rows getFavoriteStations() {
+        return favoriteStations;
+    }
+
+    public boolean isFavorite(String stationId) {
+        return favoriteIds.contains(stationId);
+    }
+
+    /* a new station, or null if there is no such station */
+    public Station getStation(String stationId) {
+        int row = table.indexOf(stationId);
+        return row == -1 ? null : table.getStation(row);
+    }
+}
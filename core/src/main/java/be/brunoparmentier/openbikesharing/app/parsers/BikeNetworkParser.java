@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2014-2015 Bruno Parmentier.
+ * Copyright (c) 2020,2022 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ * BikeSharingHub incorporates a modified version of OpenBikeSharing
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.brunoparmentier.openbikesharing.app.parsers;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.regex.Pattern;
+
+import be.brunoparmentier.openbikesharing.app.models.BikeNetwork;
+import be.brunoparmentier.openbikesharing.app.models.BikeNetworkLocation;
+import be.brunoparmentier.openbikesharing.app.models.Station;
+
+/**
+ * Parse information on a bike network.
+ *
+ * The JSON is pulled token by token and stations are built as they are read, so no
+ * intermediate JSON tree is kept in memory, even for networks with thousands of stations.
+ */
+public class BikeNetworkParser {
+    private static final Pattern STATION_NAME_ID = Pattern.compile("^[0-9 ]*- *");
+
+    private BikeNetwork bikeNetwork;
+    private boolean stripIdFromStationName;
+    /* extra keys of this network, and the values of the station being read */
+    private final ExtraFields.Plan extraPlan = new ExtraFields.Plan();
+    private final ExtraFields.Values extraValues = new ExtraFields.Values();
+
+    public BikeNetworkParser(String toParse, boolean stripIdFromStationName) throws ParseException {
+        this.stripIdFromStationName = stripIdFromStationName;
+        try {
+            parse(new StringReader(toParse));
+        } catch (IOException e) {
+            throw new ParseException(e.getMessage(), 0);
+        }
+    }
+
+    /**
+     * Parse a bike network directly from a stream, typically the body of the HTTP response.
+     * The stream is closed once parsed.
+     */
+    public BikeNetworkParser(InputStream toParse, boolean stripIdFromStationName)
+            throws IOException, ParseException {
+        this.stripIdFromStationName = stripIdFromStationName;
+        parse(new InputStreamReader(toParse, "UTF-8"));
+    }
+
+    private void parse(Reader in) throws IOException, ParseException {
+        JsonReader reader = new JsonReader(in);
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("network")) {
+                    readNetwork(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+            throw new ParseException(e.getMessage(), 0);
+        } finally {
+            reader.close();
+        }
+
+        if (bikeNetwork == null) {
+            throw new ParseException("No network found", 0);
+        }
+    }
+
+    private void readNetwork(JsonReader reader) throws IOException, ParseException {
+        String networkId = null;
+        String networkName = null;
+        String networkCompany = null;
+        BikeNetworkLocation networkLocation = null;
+        ArrayList<Station> stations = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                /* network name & id */
+                case "id":
+                    networkId = JsonValues.readString(reader);
+                    break;
+                case "name":
+                    networkName = JsonValues.readString(reader);
+                    break;
+                case "company":
+                    networkCompany = JsonValues.readStringOrArray(reader);
+                    break;
+                /* network location */
+                case "location":
+                    networkLocation = JsonValues.readLocation(reader);
+                    break;
+                /* stations list */
+                case "stations":
+                    stations = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        /* the network id is known before the stations in citybik.es answers,
+                         * but do not rely on the order of the keys */
+                        stations.add(readStation(reader, networkId));
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (networkId == null || networkName == null || networkLocation == null || stations == null) {
+            throw new ParseException("Incomplete network", 0);
+        }
+        for (Station station : stations) {
+            if (station.getNetworkId() == null) {
+                station.setNetworkId(networkId);
+            }
+        }
+        /* optional in the answer, but always set in the stored networks */
+        bikeNetwork = new BikeNetwork(networkId, networkName, networkCompany != null ? networkCompany : "",
+                networkLocation, stations);
+    }
+
+    private Station readStation(JsonReader reader, String networkId) throws IOException, ParseException {
+        String id = null;
+        String name = null;
+        String lastUpdate = null;
+        Double latitude = null;
+        Double longitude = null;
+        Integer freeBikes = null;
+        int emptySlots = -1;
+
+        extraValues.clear();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    id = JsonValues.readString(reader);
+                    break;
+                case "name":
+                    name = JsonValues.readString(reader);
+                    break;
+                case "timestamp":
+                    lastUpdate = JsonValues.readString(reader);
+                    break;
+                case "latitude":
+                    latitude = reader.nextDouble();
+                    break;
+                case "longitude":
+                    longitude = reader.nextDouble();
+                    break;
+                case "free_bikes":
+                    freeBikes = reader.nextInt();
+                    break;
+                case "empty_slots":
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull();
+                    } else {
+                        emptySlots = reader.nextInt();
+                    }
+                    break;
+                case "extra":
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        reader.skipValue();
+                        break;
+                    }
+                    extraValues.read(reader, extraPlan);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (id == null || name == null || lastUpdate == null
+                || latitude == null || longitude == null || freeBikes == null) {
+            throw new ParseException("Incomplete station " + id, 0);
+        }
+        if (stripIdFromStationName) name = STATION_NAME_ID.matcher(name).replaceFirst("");
+
+        Station station = new Station(id, name, lastUpdate, latitude, longitude,
+                freeBikes, emptySlots, networkId);
+
+        extraValues.applyTo(station);
+        return station;
+    }
+
+    public BikeNetwork getNetwork() {
+        return bikeNetwork;
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2014-2015 Bruno Parmentier.
+ *
+ * This file is part of BikeSharingHub.
+ * BikeSharingHub incorporates a modified version of OpenBikeSharing
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package be.brunoparmentier.openbikesharing.app.parsers;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.text.ParseException;
+import java.util.ArrayList;
+
+import be.brunoparmentier.openbikesharing.app.models.BikeNetworkInfo;
+import be.brunoparmentier.openbikesharing.app.models.BikeNetworkLocation;
+
+/**
+ * Parse the list of bike networks.
+ *
+ * Like {@link BikeNetworkParser}, networks are built as the JSON is pulled, without any
+ * intermediate JSON tree.
+ */
+public class BikeNetworksListParser {
+    private ArrayList<BikeNetworkInfo> bikeNetworks;
+
+    public BikeNetworksListParser(String toParse) throws ParseException {
+        try {
+            parse(new StringReader(toParse));
+        } catch (IOException e) {
+            throw new ParseException(e.getMessage(), 0);
+        }
+    }
+
+    /**
+     * Parse the list directly from a stream, typically the body of the HTTP response.
+     * The stream is closed once parsed.
+     */
+    public BikeNetworksListParser(InputStream toParse) throws IOException, ParseException {
+        parse(new InputStreamReader(toParse, "UTF-8"));
+    }
+
+    private void parse(Reader in) throws IOException, ParseException {
+        JsonReader reader = new JsonReader(in);
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("networks")) {
+                    bikeNetworks = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        bikeNetworks.add(readNetwork(reader));
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+            throw new ParseException(e.getMessage(), 0);
+        } finally {
+            reader.close();
+        }
+
+        if (bikeNetworks == null) {
+            throw new ParseException("No networks found", 0);
+        }
+    }
+
+    private BikeNetworkInfo readNetwork(JsonReader reader) throws IOException, ParseException {
+        String id = null;
+        String name = null;
+        String company = null;
+        BikeNetworkLocation location = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    id = JsonValues.readString(reader);
+                    break;
+                case "name":
+                    name = JsonValues.readString(reader);
+                    break;
+                case "company":
+                    company = JsonValues.readStringOrArray(reader);
+                    break;
+                case "location":
+                    location = JsonValues.readLocation(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (id == null || name == null || location == null) {
+            throw new ParseException("Incomplete network " + id, 0);
+        }
+        /* optional in the answer, but always set in the stored networks */
+        return new BikeNetworkInfo(id, name, company != null ? company : "", location);
+    }
+
+    public ArrayList<BikeNetworkInfo> getNetworks() {
+        return bikeNetworks;
+    }
+}
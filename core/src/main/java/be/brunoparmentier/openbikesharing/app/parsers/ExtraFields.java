@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.brunoparmentier.openbikesharing.app.parsers;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import be.brunoparmentier.openbikesharing.app.models.Station;
+import be.brunoparmentier.openbikesharing.app.models.StationStatus;
+
+/**
+ * Decoding of the "extra" object of stations, whose keys differ between vendors. The keys
+ * known for each station field are listed in a table, so that a new vendor quirk is a new row
+ * rather than new code.
+ */
+final class ExtraFields {
+    enum Field {
+        ADDRESS, BANKING, BONUS,
+        /* status from a string value */
+        STATUS,
+        /* status from a boolean value, looked up as "true" or "false" */
+        STATUS_FLAG,
+        EBIKES
+    }
+
+    /**
+     * A vendor key of the extra object. When a station has several keys for the same field,
+     * the one with the lowest rank is kept.
+     */
+    static final class Key {
+        final String name;
+        final Field field;
+        final int rank;
+        /* status keys only: values meaning the station is closed, any other one is open */
+        final Set<String> closedValues;
+
+        Key(String name, Field field, int rank, String... closedValues) {
+            this.name = name;
+            this.field = field;
+            this.rank = rank;
+            this.closedValues = closedValues.length == 0 ? Collections.<String>emptySet()
+                    : Collections.unmodifiableSet(new HashSet<>(Arrays.asList(closedValues)));
+        }
+    }
+
+    private static final Key[] KEYS_TABLE = {
+            new Key("address", Field.ADDRESS, 0),
+            new Key("description", Field.ADDRESS, 1),
+            new Key("banking", Field.BANKING, 0), // JCDecaux
+            new Key("payment-terminal", Field.BANKING, 1),
+            new Key("ticket", Field.BANKING, 2), // dublinbikes, citycycle
+            new Key("bonus", Field.BONUS, 0),
+            new Key("status", Field.STATUS, 0,
+                    "CLOSED", // villo
+                    "CLS", // ClearChannel
+                    "1", // vlille
+                    "offline"), // idecycle
+            new Key("statusValue", Field.STATUS, 1, "Not In Service"), // Bike Share
+            new Key("locked", Field.STATUS_FLAG, 2, "true"), // bixi
+            new Key("open", Field.STATUS_FLAG, 3, "false"), // dublinbikes, citycycle
+            new Key("ebikes", Field.EBIKES, 0),
+    };
+
+    private static final HashMap<String, Key> KEYS = new HashMap<>();
+
+    static {
+        for (Key key : KEYS_TABLE) {
+            KEYS.put(key.name, key);
+        }
+    }
+
+    private ExtraFields() {
+    }
+
+    /**
+     * Keys of the extra objects of one network, learnt from its stations. Stations of a
+     * network are sent by the same vendor code, so their keys usually come in the same order:
+     * the key at each position is then checked against the plan instead of being looked up.
+     */
+    static final class Plan {
+        private Key[] keys = new Key[0];
+        /* keys that are not decoded, created once per name */
+        private final HashMap<String, Key> skippedKeys = new HashMap<>();
+
+        Key get(String name, int position) {
+            if (position < keys.length && keys[position].name.equals(name)) {
+                return keys[position];
+            }
+            Key key = KEYS.get(name);
+            if (key == null) {
+                key = skippedKeys.get(name);
+                if (key == null) {
+                    key = new Key(name, null, 0);
+                    skippedKeys.put(name, key);
+                }
+            }
+            /* a station with more keys than the previous ones extends the plan */
+            if (position == keys.length) {
+                keys = Arrays.copyOf(keys, position + 1);
+                keys[position] = key;
+            }
+            return key;
+        }
+    }
+
+    /**
+     * Values decoded from the extra object of one station, reused from station to station.
+     */
+    static final class Values {
+        private String address;
+        private int addressRank;
+        private Boolean banking;
+        private int bankingRank;
+        private Boolean bonus;
+        private StationStatus status;
+        private int statusRank;
+        private Integer eBikes;
+
+        void clear() {
+            address = null;
+            banking = null;
+            bonus = null;
+            status = null;
+            eBikes = null;
+        }
+
+        void read(JsonReader reader, Plan plan) throws IOException {
+            reader.beginObject();
+            for (int position = 0; reader.hasNext(); position++) {
+                Key key = plan.get(reader.nextName(), position);
+                if (key.field == null) {
+                    reader.skipValue();
+                    continue;
+                }
+                switch (key.field) {
+                    case ADDRESS:
+                        String text = JsonValues.readString(reader);
+                        if (text != null && (address == null || key.rank <= addressRank)) {
+                            address = text;
+                            addressRank = key.rank;
+                        }
+                        break;
+                    case BANKING:
+                        Boolean value = JsonValues.readBoolean(reader);
+                        if (value != null && (banking == null || key.rank <= bankingRank)) {
+                            banking = value;
+                            bankingRank = key.rank;
+                        }
+                        break;
+                    case BONUS:
+                        bonus = JsonValues.readBoolean(reader);
+                        break;
+                    case STATUS:
+                        setStatus(key, JsonValues.readString(reader));
+                        break;
+                    case STATUS_FLAG:
+                        Boolean flag = JsonValues.readBoolean(reader);
+                        setStatus(key, flag != null ? flag.toString() : null);
+                        break;
+                    case EBIKES:
+                        if (reader.peek() == JsonToken.NULL) {
+                            reader.nextNull();
+                        } else {
+                            eBikes = reader.nextInt();
+                        }
+                        break;
+                }
+            }
+            reader.endObject();
+        }
+
+        private void setStatus(Key key, String value) {
+            if (value != null && (status == null || key.rank <= statusRank)) {
+                status = key.closedValues.contains(value) ? StationStatus.CLOSED : StationStatus.OPEN;
+                statusRank = key.rank;
+            }
+        }
+
+        void applyTo(Station station) {
+            if (address != null) {
+                station.setAddress(address);
+            }
+            if (banking != null) {
+                station.setBanking(banking);
+            }
+            if (bonus != null) {
+                station.setBonus(bonus);
+            }
+            if (status != null) {
+                station.setStatus(status);
+            }
+            if (eBikes != null) {
+                station.setEBikes(eBikes);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.brunoparmentier.openbikesharing.app.parsers;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.ParseException;
+
+import be.brunoparmentier.openbikesharing.app.models.BikeNetworkLocation;
+
+/**
+ * Lenient reading of single values and of the objects common to the parsers.
+ */
+final class JsonValues {
+    private JsonValues() {
+    }
+
+    /* Read a string value, accepting numbers and booleans as org.json did. Null gives null. */
+    static String readString(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case NULL:
+                reader.nextNull();
+                return null;
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            default:
+                return reader.nextString();
+        }
+    }
+
+    /* Read a boolean value, accepting "true"/"false" strings as org.json did. Null gives null. */
+    static Boolean readBoolean(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case NULL:
+                reader.nextNull();
+                return null;
+            case STRING:
+                String value = reader.nextString();
+                if (value.equalsIgnoreCase("true")) {
+                    return true;
+                } else if (value.equalsIgnoreCase("false")) {
+                    return false;
+                }
+                throw new IllegalStateException("Expected a boolean but was " + value);
+            default:
+                return reader.nextBoolean();
+        }
+    }
+
+    /* Some networks list several companies, keep them as a JSON array string like org.json did */
+    static String readStringOrArray(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            return readString(reader);
+        }
+        StringWriter array = new StringWriter();
+        JsonWriter writer = new JsonWriter(array);
+        writer.setSerializeNulls(true);
+        writer.beginArray();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            writer.value(readString(reader));
+        }
+        reader.endArray();
+        writer.endArray();
+        writer.close();
+        return array.toString();
+    }
+
+    /* Read the location of a network. City and country are optional in the answers, but
+     * always set in the stored networks. */
+    static BikeNetworkLocation readLocation(JsonReader reader) throws IOException, ParseException {
+        Double latitude = null;
+        Double longitude = null;
+        String city = null;
+        String country = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "latitude":
+                    latitude = reader.nextDouble();
+                    break;
+                case "longitude":
+                    longitude = reader.nextDouble();
+                    break;
+                case "city":
+                    city = readString(reader);
+                    break;
+                case "country":
+                    country = readString(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (latitude == null || longitude == null) {
+            throw new ParseException("Incomplete network location", 0);
+        }
+        return new BikeNetworkLocation(latitude, longitude,
+                city != null ? city : "", country != null ? country : "");
+    }
+}
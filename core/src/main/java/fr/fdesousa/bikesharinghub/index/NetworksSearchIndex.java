@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.fdesousa.bikesharinghub.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import be.brunoparmentier.openbikesharing.app.models.BikeNetworkInfo;
+
+/**
+ * Bike networks sorted once for the network picker, the selected networks first, then by
+ * location. Their names and locations are normalized once, so that filtering while typing
+ * only compares strings, and a query extending the previous one only checks its matches.
+ */
+public class NetworksSearchIndex {
+    private static final Comparator<BikeNetworkInfo> LOCATION_COMPARATOR = new Comparator<BikeNetworkInfo>() {
+        public int compare(BikeNetworkInfo network1, BikeNetworkInfo network2) {
+            return String.CASE_INSENSITIVE_ORDER.compare(
+                    network1.getLocationName(), network2.getLocationName());
+        }
+    };
+
+    private final ArrayList<BikeNetworkInfo> networks;
+    private final String[] names;
+    private final String[] locationNames;
+
+    private String lastQuery;
+    private int[] lastMatches;
+
+    public NetworksSearchIndex(Collection<BikeNetworkInfo> networks, Set<String> savedNetworks) {
+        ArrayList<BikeNetworkInfo> saved = new ArrayList<>();
+        ArrayList<BikeNetworkInfo> others = new ArrayList<>();
+        for (BikeNetworkInfo network : networks) {
+            if (savedNetworks.contains(network.getId())) {
+                saved.add(network);
+            } else {
+                others.add(network);
+            }
+        }
+        Collections.sort(saved, LOCATION_COMPARATOR);
+        Collections.sort(others, LOCATION_COMPARATOR);
+
+        this.networks = saved;
+        this.networks.addAll(others);
+        names = new String[this.networks.size()];
+        locationNames = new String[this.networks.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = TextNormalizer.normalize(this.networks.get(i).getName());
+            locationNames[i] = TextNormalizer.normalize(this.networks.get(i).getLocationName());
+        }
+    }
+
+    /**
+     * Networks whose name or location contains the query, ignoring case and accents, or every
+     * network if the query is null.
+     */
+    public List<BikeNetworkInfo> filter(String query) {
+        if (query == null) {
+            lastQuery = null;
+            return new ArrayList<>(networks);
+        }
+
+        String normalizedQuery = TextNormalizer.normalize(query);
+        int[] matches = new int[networks.size()];
+        int count = 0;
+        if (lastQuery != null && normalizedQuery.contains(lastQuery)) {
+            for (int i : lastMatches) {
+                if (matches(i, normalizedQuery)) {
+                    matches[count++] = i;
+                }
+            }
+        } else {
+            for (int i = 0; i < names.length; i++) {
+                if (matches(i, normalizedQuery)) {
+                    matches[count++] = i;
+                }
+            }
+        }
+        lastQuery = normalizedQuery;
+        lastMatches = new int[count];
+        System.arraycopy(matches, 0, lastMatches, 0, count);
+
+        ArrayList<BikeNetworkInfo> result = new ArrayList<>(count);
+        for (int i : lastMatches) {
+            result.add(networks.get(i));
+        }
+        return result;
+    }
+
+    private boolean matches(int i, String query) {
+        return names[i].contains(query) || locationNames[i].contains(query);
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.fdesousa.bikesharinghub.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import be.brunoparmentier.openbikesharing.app.models.Station;
+import be.brunoparmentier.openbikesharing.app.models.StationTable;
+
+/**
+ * Uniform latitude/longitude grid over a list of stations, built once per data refresh.
+ * It answers radius and k-nearest queries by only looking at the cells around the requested
+ * point, and computes the distance of each candidate once. Cells hold positions in the list, so
+ * that the index keeps no station of its own, and only the stations found are built from a
+ * list of table rows.
+ */
+public class StationsGridIndex {
+    /* About 1.1 km in latitude, so that a nearby query only looks at a few cells */
+    private static final double CELL_SIZE = 0.01;
+    private static final double EARTH_RADIUS = 6371008.8; // meters
+    private static final double METERS_PER_DEGREE = EARTH_RADIUS * Math.PI / 180;
+
+    private final List<Station> stations;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final HashMap<Long, int[]> cells;
+    private final int stationsCount;
+
+    public StationsGridIndex(List<Station> stations) {
+        this.stations = stations;
+        stationsCount = stations.size();
+        latitudes = new double[stationsCount];
+        longitudes = new double[stationsCount];
+
+        /* rows of a table are read from its columns rather than built as stations */
+        StationTable.Rows rows = stations instanceof StationTable.Rows ? (StationTable.Rows) stations : null;
+        HashMap<Long, int[]> cellSizes = new HashMap<>();
+        for (int i = 0; i < stationsCount; i++) {
+            if (rows != null) {
+                int row = rows.getRow(i);
+                latitudes[i] = rows.getTable().getLatitude(row);
+                longitudes[i] = rows.getTable().getLongitude(row);
+            } else {
+                Station station = stations.get(i);
+                latitudes[i] = station.getLatitude();
+                longitudes[i] = station.getLongitude();
+            }
+            Long key = cellKey(cellOf(latitudes[i]), cellOf(longitudes[i]));
+            int[] cellSize = cellSizes.get(key);
+            if (cellSize == null) {
+                cellSize = new int[1];
+                cellSizes.put(key, cellSize);
+            }
+            cellSize[0]++;
+        }
+
+        cells = new HashMap<>(cellSizes.size() * 2);
+        for (HashMap.Entry<Long, int[]> entry : cellSizes.entrySet()) {
+            cells.put(entry.getKey(), new int[entry.getValue()[0]]);
+            entry.getValue()[0] = 0;
+        }
+        for (int i = 0; i < stationsCount; i++) {
+            Long key = cellKey(cellOf(latitudes[i]), cellOf(longitudes[i]));
+            cells.get(key)[cellSizes.get(key)[0]++] = i;
+        }
+    }
+
+    public int size() {
+        return stationsCount;
+    }
+
+    /**
+     * Stations at most radius meters away from the given point, closest first.
+     */
+    public List<Station> findWithinRadius(double latitude, double longitude, double radius) {
+        Neighbour[] neighbours = collect(latitude, longitude, radius);
+        Arrays.sort(neighbours);
+        ArrayList<Station> result = new ArrayList<>(neighbours.length);
+        for (Neighbour neighbour : neighbours) {
+            result.add(stations.get(neighbour.position));
+        }
+        return result;
+    }
+
+    /**
+     * The k stations closest to the given point, closest first, looking no further than
+     * maxRadius meters.
+     */
+    public List<Station> findNearest(double latitude, double longitude, int k, double maxRadius) {
+        double radius = Math.min(CELL_SIZE * METERS_PER_DEGREE, maxRadius);
+        Neighbour[] neighbours = collect(latitude, longitude, radius);
+        while (neighbours.length < k && radius < maxRadius && neighbours.length < stationsCount) {
+            radius = Math.min(radius * 2, maxRadius);
+            neighbours = collect(latitude, longitude, radius);
+        }
+        Arrays.sort(neighbours);
+        int count = Math.min(k, neighbours.length);
+        ArrayList<Station> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(stations.get(neighbours[i].position));
+        }
+        return result;
+    }
+
+    private Neighbour[] collect(double latitude, double longitude, double radius) {
+        double latitudeDelta = radius / METERS_PER_DEGREE;
+        double minLatitude = latitude - latitudeDelta;
+        double maxLatitude = latitude + latitudeDelta;
+        /* a distance spans the most longitudes at the latitude closest to a pole, and every
+         * longitude is close once a pole is in reach */
+        double longitudeDelta = 180;
+        if (minLatitude > -90 && maxLatitude < 90) {
+            double cosLatitude = Math.cos(Math.toRadians(
+                    Math.max(Math.abs(minLatitude), Math.abs(maxLatitude))));
+            if (cosLatitude > 0.01) {
+                longitudeDelta = Math.min(latitudeDelta / cosLatitude, 180);
+            }
+        }
+
+        int minLatCell = cellOf(Math.max(minLatitude, -90));
+        int maxLatCell = cellOf(Math.min(maxLatitude, 90));
+        /* pairs of first and last longitude cells, two ranges across the antimeridian */
+        int[] lonCells;
+        double minLongitude = longitude - longitudeDelta;
+        double maxLongitude = longitude + longitudeDelta;
+        if (longitudeDelta >= 180) {
+            lonCells = new int[]{cellOf(-180), cellOf(180)};
+        } else if (minLongitude < -180) {
+            lonCells = new int[]{cellOf(-180), cellOf(maxLongitude),
+                    cellOf(minLongitude + 360), cellOf(180)};
+        } else if (maxLongitude > 180) {
+            lonCells = new int[]{cellOf(-180), cellOf(maxLongitude - 360),
+                    cellOf(minLongitude), cellOf(180)};
+        } else {
+            lonCells = new int[]{cellOf(minLongitude), cellOf(maxLongitude)};
+        }
+
+        long windowCells = 0;
+        for (int i = 0; i < lonCells.length; i += 2) {
+            windowCells += (long) (maxLatCell - minLatCell + 1) * (lonCells[i + 1] - lonCells[i] + 1);
+        }
+
+        ArrayList<Neighbour> neighbours = new ArrayList<>();
+        if (windowCells > cells.size()) {
+            /* large radius: fewer cells hold stations than the window has cells */
+            for (HashMap.Entry<Long, int[]> entry : cells.entrySet()) {
+                long key = entry.getKey();
+                int latCell = (int) (key >> 32);
+                int lonCell = (int) key;
+                if (latCell >= minLatCell && latCell <= maxLatCell && contains(lonCells, lonCell)) {
+                    addNeighbours(neighbours, entry.getValue(), latitude, longitude, radius);
+                }
+            }
+        } else {
+            for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+                for (int i = 0; i < lonCells.length; i += 2) {
+                    for (int lonCell = lonCells[i]; lonCell <= lonCells[i + 1]; lonCell++) {
+                        int[] cell = cells.get(cellKey(latCell, lonCell));
+                        if (cell != null) {
+                            addNeighbours(neighbours, cell, latitude, longitude, radius);
+                        }
+                    }
+                }
+            }
+        }
+        return neighbours.toArray(new Neighbour[neighbours.size()]);
+    }
+
+    private static boolean contains(int[] lonCells, int lonCell) {
+        for (int i = 0; i < lonCells.length; i += 2) {
+            if (lonCell >= lonCells[i] && lonCell <= lonCells[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addNeighbours(ArrayList<Neighbour> neighbours, int[] cell,
+                               double latitude, double longitude, double radius) {
+        for (int position : cell) {
+            double distance = distanceBetween(latitude, longitude,
+                    latitudes[position], longitudes[position]);
+            if (distance <= radius) {
+                neighbours.add(new Neighbour(position, distance));
+            }
+        }
+    }
+
+    /**
+     * Great-circle distance in meters between two points (haversine formula).
+     */
+    public static double distanceBetween(double startLatitude, double startLongitude,
+                                         double endLatitude, double endLongitude) {
+        double latitudeDelta = Math.toRadians(endLatitude - startLatitude);
+        double longitudeDelta = Math.toRadians(endLongitude - startLongitude);
+        double sinLatitude = Math.sin(latitudeDelta / 2);
+        double sinLongitude = Math.sin(longitudeDelta / 2);
+        double a = sinLatitude * sinLatitude
+                + Math.cos(Math.toRadians(startLatitude)) * Math.cos(Math.toRadians(endLatitude))
+                * sinLongitude * sinLongitude;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static int cellOf(double degrees) {
+        return (int) Math.floor(degrees / CELL_SIZE);
+    }
+
+    private static Long cellKey(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+
+    private static class Neighbour implements Comparable<Neighbour> {
+        final int position;
+        final double distance;
+
+        Neighbour(int position, double distance) {
+            this.position = position;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Neighbour another) {
+            return Double.compare(distance, another.distance);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.fdesousa.bikesharinghub.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import be.brunoparmentier.openbikesharing.app.models.Station;
+import be.brunoparmentier.openbikesharing.app.models.StationTable;
+
+/**
+ * Substring search on the names of a list of stations, built once per data refresh. Names are
+ * normalized once, and a trigram index restricts the names to check to those that contain the
+ * rarest trigram of the query. As the query grows while typing, only the previous matches are
+ * checked again. Only the stations found are built from a list of table rows.
+ */
+public class StationsSearchIndex {
+    private final List<Station> stations;
+    private final String[] names;
+    private final HashMap<Long, int[]> trigrams;
+
+    /* previous search, to narrow its matches when the query is extended */
+    private String lastQuery;
+    private int[] lastMatches;
+
+    public StationsSearchIndex(List<Station> stations) {
+        this.stations = stations;
+        names = new String[stations.size()];
+
+        /* rows of a table are read from its columns rather than built as stations */
+        StationTable.Rows rows = stations instanceof StationTable.Rows ? (StationTable.Rows) stations : null;
+        HashMap<Long, IntList> postings = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            names[i] = TextNormalizer.normalize(rows != null
+                    ? rows.getTable().getName(rows.getRow(i)) : stations.get(i).getName());
+            for (int j = 0; j + 3 <= names[i].length(); j++) {
+                Long trigram = trigram(names[i], j);
+                IntList posting = postings.get(trigram);
+                if (posting == null) {
+                    posting = new IntList();
+                    postings.put(trigram, posting);
+                }
+                /* a name containing a trigram several times is listed once */
+                posting.addIfLast(i);
+            }
+        }
+
+        trigrams = new HashMap<>(postings.size() * 2);
+        for (HashMap.Entry<Long, IntList> entry : postings.entrySet()) {
+            trigrams.put(entry.getKey(), entry.getValue().toArray());
+        }
+    }
+
+    /**
+     * Stations whose name contains the query, ignoring case and accents, in the order of the
+     * indexed list.
+     */
+    public List<Station> search(String query) {
+        String normalizedQuery = TextNormalizer.normalize(query);
+        int[] matches;
+        if (lastQuery != null && normalizedQuery.contains(lastQuery)) {
+            matches = filter(lastMatches, lastMatches.length, normalizedQuery);
+        } else {
+            int[] candidates = getCandidates(normalizedQuery);
+            matches = candidates == null
+                    ? filterAll(normalizedQuery)
+                    : filter(candidates, candidates.length, normalizedQuery);
+        }
+        lastQuery = normalizedQuery;
+        lastMatches = matches;
+
+        ArrayList<Station> result = new ArrayList<>(matches.length);
+        for (int match : matches) {
+            result.add(stations.get(match));
+        }
+        return result;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /* names containing every trigram of the query are in the shortest posting, or null if the
+     * query is too short to use trigrams */
+    private int[] getCandidates(String query) {
+        if (query.length() < 3) {
+            return null;
+        }
+        int[] candidates = null;
+        for (int j = 0; j + 3 <= query.length(); j++) {
+            int[] posting = trigrams.get(trigram(query, j));
+            if (posting == null) {
+                return new int[0];
+            }
+            if (candidates == null || posting.length < candidates.length) {
+                candidates = posting;
+            }
+        }
+        return candidates;
+    }
+
+    private int[] filterAll(String query) {
+        int[] matches = new int[names.length];
+        int count = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].contains(query)) {
+                matches[count++] = i;
+            }
+        }
+        return trim(matches, count);
+    }
+
+    private int[] filter(int[] candidates, int length, String query) {
+        int[] matches = new int[length];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (names[candidates[i]].contains(query)) {
+                matches[count++] = candidates[i];
+            }
+        }
+        return trim(matches, count);
+    }
+
+    private static int[] trim(int[] array, int length) {
+        if (array.length == length) {
+            return array;
+        }
+        int[] trimmed = new int[length];
+        System.arraycopy(array, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    private static Long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32)
+                | ((long) text.charAt(start + 1) << 16)
+                | (long) text.charAt(start + 2);
+    }
+
+    /* growable array of ints in increasing order */
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void addIfLast(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                int[] grown = new int[size * 2];
+                System.arraycopy(values, 0, grown, 0, size);
+                values = grown;
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return trim(values, size);
+        }
+    }
+}
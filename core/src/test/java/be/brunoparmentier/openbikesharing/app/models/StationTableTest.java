@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.brunoparmentier.openbikesharing.app.models;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class StationTableTest {
+    private static final Boolean[] BOOLEANS = {null, false, true};
+    private static final StationStatus[] STATUSES = {null, StationStatus.OPEN, StationStatus.CLOSED};
+    private static final Integer[] E_BIKES = {null, 0, 7};
+
+    /* one station for each combination of the optional values */
+    private static ArrayList<Station> allCombinations() {
+        ArrayList<Station> stations = new ArrayList<>();
+        for (Boolean banking : BOOLEANS) {
+            for (Boolean bonus : BOOLEANS) {
+                for (StationStatus status : STATUSES) {
+                    for (Integer eBikes : E_BIKES) {
+                        int i = stations.size();
+                        Station station = new Station("id" + i, "name" + i, "t" + i,
+                                50 + i / 100.0, 4 - i / 100.0, i, -1 + i % 3, "network" + i % 2);
+                        if (banking != null) {
+                            station.setBanking(banking);
+                        }
+                        if (bonus != null) {
+                            station.setBonus(bonus);
+                        }
+                        station.setStatus(status);
+                        if (eBikes != null) {
+                            station.setEBikes(eBikes);
+                        }
+                        if (i % 4 != 0) {
+                            station.setAddress("address" + i);
+                        }
+                        stations.add(station);
+                    }
+                }
+            }
+        }
+        return stations;
+    }
+
+    private static void assertSameStation(Station expected, Station actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getLastUpdate(), actual.getLastUpdate());
+        assertEquals(expected.getAddress(), actual.getAddress());
+        assertEquals(expected.getLatitude(), actual.getLatitude(), 0);
+        assertEquals(expected.getLongitude(), actual.getLongitude(), 0);
+        assertEquals(expected.getFreeBikes(), actual.getFreeBikes());
+        assertEquals(expected.getEmptySlots(), actual.getEmptySlots());
+        assertEquals(expected.getNetworkId(), actual.getNetworkId());
+        assertEquals(expected.isBanking(), actual.isBanking());
+        assertEquals(expected.isBonus(), actual.isBonus());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getEBikes(), actual.getEBikes());
+    }
+
+    @Test
+    public void roundTripsEveryCombinationOfFlags() {
+        ArrayList<Station> stations = allCombinations();
+        StationTable table = new StationTable(stations);
+
+        assertEquals(81, table.size());
+        for (int row = 0; row < stations.size(); row++) {
+            Station station = stations.get(row);
+            assertSameStation(station, table.getStation(row));
+            assertSameStation(station, table.asList().get(row));
+            assertEquals(station.isBanking(), table.isBanking(row));
+            assertEquals(station.isBonus(), table.isBonus(row));
+            assertEquals(station.getStatus(), table.getStatus(row));
+            assertEquals(station.getEBikes(), table.getEBikes(row));
+        }
+    }
+
+    @Test
+    public void readsRowsThroughAReusedRow() {
+        ArrayList<Station> stations = allCombinations();
+        StationTable table = new StationTable(stations);
+        StationTable.Row row = table.newRow();
+
+        for (int i = 0; i < stations.size(); i++) {
+            Station station = stations.get(i);
+            assertSame(row, row.moveTo(i));
+            assertEquals(station.getId(), row.getId());
+            assertEquals(station.getNetworkId(), row.getNetworkId());
+            assertEquals(station.isBanking(), row.isBanking());
+            assertEquals(station.isBonus(), row.isBonus());
+            assertEquals(station.getStatus(), row.getStatus());
+            assertEquals(station.getEBikes(), row.getEBikes());
+            assertEquals(station.getAddress(), row.getAddress());
+        }
+    }
+
+    @Test
+    public void keepsNullNetworksAndAddresses() {
+        ArrayList<Station> stations = new ArrayList<>();
+        stations.add(new Station("a", "A", null, 0, 0, 0, -1, null));
+        stations.add(new Station("b", "B", null, 0, 0, 0, -1, "n"));
+        StationTable table = new StationTable(stations);
+
+        assertNull(table.getNetworkId(0));
+        assertEquals("n", table.getNetworkId(1));
+        assertNull(table.getAddress(0));
+        assertNull(table.getLastUpdate(0));
+        assertNull(table.getStatus(0));
+        assertNull(table.isBanking(0));
+        assertNull(table.getEBikes(0));
+    }
+
+    @Test
+    public void findsRowsById() {
+        ArrayList<Station> stations = new ArrayList<>();
+        for (String id : new String[]{"m", "c", "x", "a"}) {
+            stations.add(new Station(id, id, "t", 0, 0, 0, 0, "n"));
+        }
+        StationTable table = new StationTable(stations);
+
+        assertEquals(0, table.indexOf("m"));
+        assertEquals(1, table.indexOf("c"));
+        assertEquals(2, table.indexOf("x"));
+        assertEquals(3, table.indexOf("a"));
+        assertEquals(-1, table.indexOf("b"));
+        assertEquals(-1, table.indexOf("z"));
+        assertEquals(-1, new StationTable(new ArrayList<Station>()).indexOf("a"));
+    }
+
+    @Test
+    public void listsSomeRows() {
+        StationTable table = new StationTable(allCombinations());
+        StationTable.Rows rows = table.rows(new int[]{5, 1});
+
+        assertEquals(2, rows.size());
+        assertSame(table, rows.getTable());
+        assertEquals(5, rows.getRow(0));
+        assertEquals("id1", rows.get(1).getId());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsPositionsOutOfTheRows() {
+        new StationTable(allCombinations()).rows(new int[]{5, 1}).getRow(2);
+    }
+}
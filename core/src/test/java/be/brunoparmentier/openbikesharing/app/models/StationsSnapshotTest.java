@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.brunoparmentier.openbikesharing.app.models;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StationsSnapshotTest {
+
+    private static ArrayList<Station> stations(String... ids) {
+        ArrayList<Station> stations = new ArrayList<>();
+        for (String id : ids) {
+            Station station = new Station(id, "Station " + id, "t", 50, 4, 3, 2, "n");
+            station.setStatus(StationStatus.OPEN);
+            stations.add(station);
+        }
+        return stations;
+    }
+
+    @Test
+    public void listsStationsAndFavoritesInOrder() {
+        StationsSnapshot snapshot = new StationsSnapshot(3, stations("c", "a", "b"),
+                Arrays.asList("b", "c", "unknown"));
+
+        assertEquals(3, snapshot.getVersion());
+        assertEquals(3, snapshot.getStations().size());
+        assertEquals("a", snapshot.getStations().get(1).getId());
+        assertEquals(2, snapshot.getFavoriteStations().size());
+        assertEquals("c", snapshot.getFavoriteStations().get(0).getId());
+        assertEquals("b", snapshot.getFavoriteStations().get(1).getId());
+        assertTrue(snapshot.isFavorite("b"));
+        assertTrue(snapshot.isFavorite("unknown"));
+        assertFalse(snapshot.isFavorite("a"));
+    }
+
+    @Test
+    public void findsStationsById() {
+        StationsSnapshot snapshot = new StationsSnapshot(1, stations("c", "a", "b"),
+                Collections.<String>emptyList());
+
+        Station station = snapshot.getStation("b");
+        assertEquals("Station b", station.getName());
+        assertEquals(StationStatus.OPEN, station.getStatus());
+        assertNull(snapshot.getStation("d"));
+    }
+
+    @Test
+    public void sharesTheTableWithNewFavorites() {
+        StationsSnapshot snapshot = new StationsSnapshot(1, stations("c", "a", "b"),
+                Collections.singletonList("a"));
+        StationsSnapshot favorites = snapshot.withFavorites(2, Arrays.asList("b", "c"));
+
+        assertEquals(2, favorites.getVersion());
+        assertSame(snapshot.getTable(), favorites.getTable());
+        assertEquals(2, favorites.getFavoriteStations().size());
+        assertFalse(favorites.isFavorite("a"));
+        /* the previous snapshot is unchanged */
+        assertEquals(1, snapshot.getFavoriteStations().size());
+        assertTrue(snapshot.isFavorite("a"));
+    }
+
+    @Test
+    public void handlesEmptySnapshots() {
+        StationsSnapshot snapshot = new StationsSnapshot(0, new ArrayList<Station>(),
+                Collections.singletonList("a"));
+
+        assertEquals(0, snapshot.getStations().size());
+        assertEquals(0, snapshot.getFavoriteStations().size());
+        assertNull(snapshot.getStation("a"));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.brunoparmentier.openbikesharing.app.parsers;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+
+import be.brunoparmentier.openbikesharing.app.models.BikeNetwork;
+import be.brunoparmentier.openbikesharing.app.models.Station;
+import be.brunoparmentier.openbikesharing.app.models.StationStatus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BikeNetworkParserTest {
+    private static final String NETWORK = "{\"network\":{"
+            + "\"company\":[\"JCDecaux\",\"Brussels\"],\"id\":\"villo\","
+            + "\"location\":{\"city\":\"Bruxelles\",\"country\":\"BE\",\"latitude\":50.85,\"longitude\":4.35},"
+            + "\"name\":\"Villo!\",\"stations\":["
+            + "{\"empty_slots\":5,\"extra\":{\"address\":\"Rue Neuve\",\"banking\":true,\"bonus\":false,"
+            + "\"status\":\"CLOSED\",\"ebikes\":2},\"free_bikes\":3,\"id\":\"a1\",\"latitude\":50.1,"
+            + "\"longitude\":4.1,\"name\":\"012 - Gare Centrale\",\"timestamp\":\"2026-10-17T08:00:00Z\"},"
+            + "{\"empty_slots\":null,\"extra\":{\"description\":\"Près du parc\",\"ticket\":\"True\","
+            + "\"open\":true},\"free_bikes\":0,\"id\":\"a2\",\"latitude\":50.2,\"longitude\":4.2,"
+            + "\"name\":\"Parc\",\"timestamp\":\"2026-10-17T08:00:00Z\"}"
+            + "]}}";
+
+    @Test
+    public void parsesNetworkAndStations() throws Exception {
+        BikeNetwork network = new BikeNetworkParser(NETWORK, false).getNetwork();
+
+        assertEquals("villo", network.getId());
+        assertEquals("Villo!", network.getName());
+        assertEquals("[\"JCDecaux\",\"Brussels\"]", network.getCompany());
+        assertEquals("Bruxelles", network.getLocation().getCity());
+        assertEquals(2, network.getStations().size());
+
+        Station first = network.getStations().get(0);
+        assertEquals("a1", first.getId());
+        assertEquals("012 - Gare Centrale", first.getName());
+        assertEquals("villo", first.getNetworkId());
+        assertEquals(3, first.getFreeBikes());
+        assertEquals(5, first.getEmptySlots());
+        assertEquals(50.1, first.getLatitude(), 0);
+        assertEquals("Rue Neuve", first.getAddress());
+        assertTrue(first.isBanking());
+        assertFalse(first.isBonus());
+        assertEquals(StationStatus.CLOSED, first.getStatus());
+        assertEquals(Integer.valueOf(2), first.getEBikes());
+
+        Station second = network.getStations().get(1);
+        assertEquals(-1, second.getEmptySlots());
+        assertEquals("Près du parc", second.getAddress());
+        assertTrue(second.isBanking());
+        assertNull(second.isBonus());
+        assertEquals(StationStatus.OPEN, second.getStatus());
+        assertNull(second.getEBikes());
+    }
+
+    @Test
+    public void escapesCompanyArrays() throws Exception {
+        String company = "[\"Vélo \\\"Plus\\\"\",\"C:\\\\bikes\"]";
+        BikeNetwork network = new BikeNetworkParser(NETWORK
+                .replace("[\"JCDecaux\",\"Brussels\"]", company), false).getNetwork();
+
+        assertEquals(company, network.getCompany());
+    }
+
+    @Test
+    public void defaultsMissingNetworkFields() throws Exception {
+        BikeNetwork network = new BikeNetworkParser(NETWORK
+                .replace("[\"JCDecaux\",\"Brussels\"]", "null")
+                .replace("\"Bruxelles\"", "null")
+                .replace("\"country\":\"BE\",", ""), false).getNetwork();
+
+        assertEquals("", network.getCompany());
+        assertEquals("", network.getLocation().getCity());
+        assertEquals("", network.getLocation().getCountry());
+        assertEquals(50.85, network.getLocation().getLatitude(), 0);
+    }
+
+    @Test
+    public void stripsIdFromStationNames() throws Exception {
+        ArrayList<Station> stations = new BikeNetworkParser(NETWORK, true).getNetwork().getStations();
+
+        assertEquals("Gare Centrale", stations.get(0).getName());
+        assertEquals("Parc", stations.get(1).getName());
+    }
+
+    @Test
+    public void parsesStreams() throws Exception {
+        BikeNetwork network = new BikeNetworkParser(
+                new ByteArrayInputStream(NETWORK.getBytes(StandardCharsets.UTF_8)), false).getNetwork();
+
+        assertEquals("Près du parc", network.getStations().get(1).getAddress());
+    }
+
+    @Test(expected = ParseException.class)
+    public void rejectsIncompleteStations() throws Exception {
+        new BikeNetworkParser(NETWORK.replace("\"free_bikes\":3,", ""), false);
+    }
+
+    @Test(expected = ParseException.class)
+    public void rejectsMalformedJson() throws Exception {
+        new BikeNetworkParser(NETWORK.substring(0, NETWORK.length() / 2), false);
+    }
+
+    @Test(expected = ParseException.class)
+    public void rejectsAnswersWithoutNetwork() throws Exception {
+        new BikeNetworkParser("{\"networks\":[]}", false);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.brunoparmentier.openbikesharing.app.parsers;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+
+import be.brunoparmentier.openbikesharing.app.models.BikeNetworkInfo;
+
+import static org.junit.Assert.assertEquals;
+
+public class BikeNetworksListParserTest {
+
+    @Test
+    public void parsesNetworks() throws Exception {
+        ArrayList<BikeNetworkInfo> networks = new BikeNetworksListParser("{\"networks\":["
+                + "{\"company\":[\"JCDecaux\"],\"href\":\"/v2/networks/velib\",\"id\":\"velib\","
+                + "\"location\":{\"city\":\"Paris\",\"country\":\"FR\",\"latitude\":48.86,\"longitude\":2.35},"
+                + "\"name\":\"Vélib'\"},"
+                + "{\"company\":\"Nextbike\",\"id\":\"nextbike-berlin\",\"name\":\"Nextbike\","
+                + "\"location\":{\"city\":\"Berlin\",\"country\":\"DE\",\"latitude\":52.5,\"longitude\":13.4}}"
+                + "]}").getNetworks();
+
+        assertEquals(2, networks.size());
+        assertEquals("velib", networks.get(0).getId());
+        assertEquals("Vélib'", networks.get(0).getName());
+        assertEquals("[\"JCDecaux\"]", networks.get(0).getCompany());
+        assertEquals("Paris", networks.get(0).getLocation().getCity());
+        assertEquals(48.86, networks.get(0).getLocation().getLatitude(), 0);
+        assertEquals("Nextbike", networks.get(1).getCompany());
+    }
+
+    @Test
+    public void defaultsMissingTextToEmpty() throws Exception {
+        BikeNetworkInfo network = new BikeNetworksListParser("{\"networks\":["
+                + "{\"company\":null,\"id\":\"x\",\"name\":\"X\",\"location\":{\"latitude\":1,\"longitude\":2}}"
+                + "]}").getNetworks().get(0);
+
+        assertEquals("", network.getCompany());
+        assertEquals("", network.getLocation().getCity());
+        assertEquals("", network.getLocation().getCountry());
+    }
+
+    @Test(expected = ParseException.class)
+    public void rejectsNetworksWithoutLocation() throws Exception {
+        new BikeNetworksListParser("{\"networks\":[{\"id\":\"x\",\"name\":\"X\"}]}");
+    }
+
+    @Test(expected = ParseException.class)
+    public void rejectsAnswersWithoutNetworks() throws Exception {
+        new BikeNetworksListParser("{\"network\":{}}");
+    }
+}
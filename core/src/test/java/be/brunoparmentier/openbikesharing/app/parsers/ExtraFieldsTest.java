@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package be.brunoparmentier.openbikesharing.app.parsers;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import be.brunoparmentier.openbikesharing.app.models.Station;
+import be.brunoparmentier.openbikesharing.app.models.StationStatus;
+import fr.fdesousa.bikesharinghub.fixtures.NetworkPayloadGenerator;
+import fr.fdesousa.bikesharinghub.fixtures.NetworkPayloadGenerator.Extra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ExtraFieldsTest {
+    private static final String STATION_START = "{\"network\":{\"id\":\"test\",\"name\":\"Test\","
+            + "\"location\":{\"latitude\":50,\"longitude\":4},\"stations\":[";
+    private static final String STATION = "{\"empty_slots\":1,\"free_bikes\":2,\"id\":\"%s\","
+            + "\"latitude\":50,\"longitude\":4,\"name\":\"Parc\",\"timestamp\":\"2026-10-17T08:00:00Z\","
+            + "\"extra\":%s}";
+
+    @Test
+    public void matchesPreviousDecodingOnGeneratedNetworks() throws Exception {
+        Extra[] allExtras = Extra.values();
+        Random random = new Random(25);
+        for (int i = 0; i < 200; i++) {
+            EnumSet<Extra> extras = EnumSet.noneOf(Extra.class);
+            for (Extra extra : allExtras) {
+                if (random.nextBoolean()) {
+                    extras.add(extra);
+                }
+            }
+            String json = new NetworkPayloadGenerator()
+                    .setSeed(i)
+                    .setStations(50)
+                    .setExtras(extras)
+                    .setVaryingExtras(i % 2 == 1)
+                    .network("network-" + i);
+
+            List<Station> stations = new BikeNetworkParser(json, false).getNetwork().getStations();
+            List<Station> expected = decodeExtras(json);
+            assertEquals(expected.size(), stations.size());
+            for (int j = 0; j < stations.size(); j++) {
+                String message = "network " + i + " " + extras + ", station " + j;
+                assertEquals(message, expected.get(j).getAddress(), stations.get(j).getAddress());
+                assertEquals(message, expected.get(j).isBanking(), stations.get(j).isBanking());
+                assertEquals(message, expected.get(j).isBonus(), stations.get(j).isBonus());
+                assertEquals(message, expected.get(j).getStatus(), stations.get(j).getStatus());
+                assertEquals(message, expected.get(j).getEBikes(), stations.get(j).getEBikes());
+            }
+        }
+    }
+
+    @Test
+    public void keepsPrecedenceWhateverTheKeyOrder() throws Exception {
+        List<Station> stations = parse(
+                "{\"status\":\"CLS\",\"open\":true,\"description\":\"Parc\",\"address\":\"Rue\"}",
+                "{\"address\":\"Rue\",\"open\":true,\"description\":\"Parc\",\"status\":\"CLS\"}",
+                "{\"open\":true,\"status\":\"CLS\",\"address\":\"Rue\",\"description\":\"Parc\"}");
+
+        for (Station station : stations) {
+            assertEquals("Rue", station.getAddress());
+            assertEquals(StationStatus.CLOSED, station.getStatus());
+        }
+    }
+
+    @Test
+    public void fallsBackOnNullValues() throws Exception {
+        List<Station> stations = parse(
+                "{\"status\":\"OPEN\",\"locked\":false,\"banking\":true,\"ticket\":false,\"ebikes\":1}",
+                "{\"status\":null,\"locked\":true,\"banking\":null,\"ticket\":false,\"ebikes\":null}",
+                "{\"ticket\":null,\"banking\":null,\"locked\":null,\"status\":null,\"bonus\":null}");
+
+        assertEquals(StationStatus.CLOSED, stations.get(1).getStatus());
+        assertFalse(stations.get(1).isBanking());
+        assertNull(stations.get(1).getEBikes());
+        assertNull(stations.get(2).getStatus());
+        assertNull(stations.get(2).isBanking());
+        assertNull(stations.get(2).isBonus());
+    }
+
+    @Test
+    public void skipsUnknownKeys() throws Exception {
+        List<Station> stations = parse(
+                "{\"uid\":1,\"slots\":{\"a\":[1,2]},\"address\":\"Rue\"}",
+                "{\"address\":\"Quai\",\"slots\":null,\"uid\":2,\"other\":[true]}");
+
+        assertEquals("Rue", stations.get(0).getAddress());
+        assertEquals("Quai", stations.get(1).getAddress());
+    }
+
+    @Test
+    public void reusesKeysMissedAfterTheFirstStation() {
+        ExtraFields.Plan plan = new ExtraFields.Plan();
+        ExtraFields.Key uid = plan.get("uid", 0);
+        ExtraFields.Key address = plan.get("address", 1);
+
+        /* other order, then a longer object extending the plan */
+        assertSame(address, plan.get("address", 0));
+        assertSame(uid, plan.get("uid", 1));
+        ExtraFields.Key slots = plan.get("slots", 2);
+        assertNull(slots.field);
+        assertSame(slots, plan.get("slots", 0));
+        assertSame(slots, plan.get("slots", 2));
+        assertEquals(ExtraFields.Field.ADDRESS, address.field);
+    }
+
+    private static List<Station> parse(String... extras) throws Exception {
+        StringBuilder json = new StringBuilder(STATION_START);
+        for (int i = 0; i < extras.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format(STATION, "s" + i, extras[i]));
+        }
+        json.append("]}}");
+        return new BikeNetworkParser(json.toString(), false).getNetwork().getStations();
+    }
+
+    /**
+     * Extra fields of the stations of a network answer as decoded before the keys table:
+     * every key read into its own value, then the first non-null one of each field kept.
+     */
+    private static List<Station> decodeExtras(String json) throws IOException {
+        ArrayList<Station> stations = new ArrayList<>();
+        JsonReader reader = new JsonReader(new StringReader(json));
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("network")) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("stations")) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    stations.add(decodeStationExtras(reader));
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+        return stations;
+    }
+
+    private static Station decodeStationExtras(JsonReader reader) throws IOException {
+        String address = null;
+        String description = null;
+        Boolean banking = null;
+        Boolean paymentTerminal = null;
+        Boolean ticket = null;
+        Boolean bonus = null;
+        String status = null;
+        String statusValue = null;
+        Boolean locked = null;
+        Boolean open = null;
+        Integer eBikes = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("extra")) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "address":
+                        address = JsonValues.readString(reader);
+                        break;
+                    case "description":
+                        description = JsonValues.readString(reader);
+                        break;
+                    case "banking":
+                        banking = JsonValues.readBoolean(reader);
+                        break;
+                    case "payment-terminal":
+                        paymentTerminal = JsonValues.readBoolean(reader);
+                        break;
+                    case "ticket":
+                        ticket = JsonValues.readBoolean(reader);
+                        break;
+                    case "bonus":
+                        bonus = JsonValues.readBoolean(reader);
+                        break;
+                    case "status":
+                        status = JsonValues.readString(reader);
+                        break;
+                    case "statusValue":
+                        statusValue = JsonValues.readString(reader);
+                        break;
+                    case "locked":
+                        locked = JsonValues.readBoolean(reader);
+                        break;
+                    case "open":
+                        open = JsonValues.readBoolean(reader);
+                        break;
+                    case "ebikes":
+                        if (reader.peek() == JsonToken.NULL) {
+                            reader.nextNull();
+                        } else {
+                            eBikes = reader.nextInt();
+                        }
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+
+        Station station = new Station("", "", "", 0, 0, 0, 0, "");
+        if (address != null) {
+            station.setAddress(address);
+        } else if (description != null) {
+            station.setAddress(description);
+        }
+        if (banking != null) {
+            station.setBanking(banking);
+        } else if (paymentTerminal != null) {
+            station.setBanking(paymentTerminal);
+        } else if (ticket != null) {
+            station.setBanking(ticket);
+        }
+        if (bonus != null) {
+            station.setBonus(bonus);
+        }
+        if (status != null) {
+            boolean closed = status.equals("CLOSED") || status.equals("CLS")
+                    || status.equals("1") || status.equals("offline");
+            station.setStatus(closed ? StationStatus.CLOSED : StationStatus.OPEN);
+        } else if (statusValue != null) {
+            station.setStatus(statusValue.equals("Not In Service")
+                    ? StationStatus.CLOSED : StationStatus.OPEN);
+        } else if (locked != null) {
+            station.setStatus(locked ? StationStatus.CLOSED : StationStatus.OPEN);
+        } else if (open != null) {
+            station.setStatus(!open ? StationStatus.CLOSED : StationStatus.OPEN);
+        }
+        if (eBikes != null) {
+            station.setEBikes(eBikes);
+        }
+        return station;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.fdesousa.bikesharinghub.index;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import be.brunoparmentier.openbikesharing.app.models.Station;
+import be.brunoparmentier.openbikesharing.app.models.StationTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StationsGridIndexTest {
+
+    private static Station station(String id, double latitude, double longitude) {
+        return new Station(id, id, "t", latitude, longitude, 1, 1, "n");
+    }
+
+    private static List<String> ids(List<Station> stations) {
+        ArrayList<String> ids = new ArrayList<>();
+        for (Station station : stations) {
+            ids.add(station.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void indexesTableRows() {
+        ArrayList<Station> stations = new ArrayList<>();
+        stations.add(station("far", 50.8566, 4.3528));
+        stations.add(station("near", 50.8476, 4.3528));
+        stations.add(station("center", 50.8466, 4.3528));
+        StationTable table = new StationTable(stations);
+        int[] rows = {2, 0};
+        StationsGridIndex index = new StationsGridIndex(table.rows(rows));
+
+        assertEquals(2, index.size());
+        List<Station> found = index.findNearest(50.8466, 4.3528, 2, 5000);
+        assertEquals("center", found.get(0).getId());
+        assertEquals("far", found.get(1).getId());
+    }
+
+    @Test
+    public void findsStationsWithinRadiusClosestFirst() {
+        ArrayList<Station> stations = new ArrayList<>();
+        stations.add(station("far", 50.8566, 4.3528)); // about 1.1 km north
+        stations.add(station("near", 50.8476, 4.3528)); // about 110 m north
+        stations.add(station("center", 50.8466, 4.3528));
+        StationsGridIndex index = new StationsGridIndex(stations);
+
+        List<Station> found = index.findWithinRadius(50.8466, 4.3528, 1000);
+        assertEquals(2, found.size());
+        assertEquals("center", found.get(0).getId());
+        assertEquals("near", found.get(1).getId());
+        assertEquals(3, index.findWithinRadius(50.8466, 4.3528, 2000).size());
+    }
+
+    @Test
+    public void findsNearestStations() {
+        ArrayList<Station> stations = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            stations.add(station("s" + i, 50 + i * 0.1, 4));
+        }
+        StationsGridIndex index = new StationsGridIndex(stations);
+
+        List<Station> nearest = index.findNearest(50.95, 4, 2, 100000);
+        assertEquals(2, nearest.size());
+        assertTrue(ids(nearest).contains("s9"));
+        assertTrue(ids(nearest).contains("s10"));
+        assertTrue(index.findNearest(0, 0, 3, 1000).isEmpty());
+    }
+
+    @Test(timeout = 1000)
+    public void searchesLargeRadiusesThroughOccupiedCells() {
+        ArrayList<Station> stations = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            stations.add(station("s" + i, 48.8 + i * 0.01, 2.3));
+        }
+        StationsGridIndex index = new StationsGridIndex(stations);
+
+        assertEquals(5, index.findNearest(40.7, -74.0, 5, 6000000).size());
+        assertEquals(20, index.findWithinRadius(40.7, -74.0, 20000000).size());
+    }
+
+    @Test
+    public void findsStationsAcrossTheAntimeridian() {
+        ArrayList<Station> stations = new ArrayList<>();
+        stations.add(station("east", -16.5, 179.99));
+        stations.add(station("west", -16.5, -179.99));
+        StationsGridIndex index = new StationsGridIndex(stations);
+
+        assertEquals(2, index.findWithinRadius(-16.5, 179.995, 5000).size());
+        assertEquals(2, index.findWithinRadius(-16.5, -179.995, 5000).size());
+    }
+
+    @Test
+    public void findsStationsAcrossAPole() {
+        ArrayList<Station> stations = new ArrayList<>();
+        stations.add(station("north", 89.99, 0));
+        stations.add(station("other side", 89.99, 180));
+        StationsGridIndex index = new StationsGridIndex(stations);
+
+        assertEquals(2, index.findWithinRadius(89.99, 0, 5000).size());
+    }
+
+    @Test
+    public void widensTheLongitudesTowardsPoles() {
+        /* 35° east at 70° of latitude is closer to a point at 60° than the longitudes spanned
+         * by that distance at 60° */
+        ArrayList<Station> stations = new ArrayList<>();
+        stations.add(station("north-east", 70, 35));
+        StationsGridIndex index = new StationsGridIndex(stations);
+
+        double distance = StationsGridIndex.distanceBetween(60, 0, 70, 35);
+        assertEquals(1, index.findWithinRadius(60, 0, distance + 1).size());
+    }
+}
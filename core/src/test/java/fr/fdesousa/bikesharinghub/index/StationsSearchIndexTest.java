@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.fdesousa.bikesharinghub.index;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import be.brunoparmentier.openbikesharing.app.models.Station;
+import be.brunoparmentier.openbikesharing.app.models.StationTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StationsSearchIndexTest {
+
+    private static List<Station> stations(String... names) {
+        ArrayList<Station> stations = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            stations.add(new Station("s" + i, names[i], "t", 0, 0, 1, 1, "n"));
+        }
+        return stations;
+    }
+
+    private static List<String> names(List<Station> stations) {
+        ArrayList<String> names = new ArrayList<>();
+        for (Station station : stations) {
+            names.add(station.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void findsSubstringsIgnoringCaseAndAccents() {
+        StationsSearchIndex index = new StationsSearchIndex(
+                stations("Gare Centrale", "Hôtel de Ville", "Place de la Gare", "Musée"));
+
+        assertEquals(2, index.search("GARE").size());
+        assertEquals("Hôtel de Ville", index.search("hotel").get(0).getName());
+        assertEquals("Musée", index.search("musee").get(0).getName());
+    }
+
+    @Test
+    public void indexesTableRows() {
+        StationTable table = new StationTable(new ArrayList<>(
+                stations("Gare Centrale", "Hôtel de Ville", "Place de la Gare")));
+        StationsSearchIndex index = new StationsSearchIndex(table.rows(new int[]{2, 1}));
+
+        assertEquals(2, index.size());
+        assertEquals("Place de la Gare", index.search("gare").get(0).getName());
+        assertEquals("s2", index.search("gare").get(0).getId());
+        assertEquals(1, index.search("ville").size());
+    }
+
+    @Test
+    public void keepsTheOrderOfTheIndexedList() {
+        StationsSearchIndex index = new StationsSearchIndex(
+                stations("Place de la Gare", "Gare du Nord", "Parc", "Gare Centrale"));
+
+        assertEquals(names(stations("Place de la Gare", "Gare du Nord", "Gare Centrale")),
+                names(index.search("gare")));
+    }
+
+    @Test
+    public void narrowsAndWidensWhileTyping() {
+        StationsSearchIndex index = new StationsSearchIndex(
+                stations("Gare Centrale", "Garibaldi", "Parc"));
+
+        assertEquals(2, index.search("ga").size());
+        assertEquals(1, index.search("gare").size());
+        /* a shorter query must not be answered from the narrower matches */
+        assertEquals(2, index.search("gar").size());
+        assertEquals(3, index.search("").size());
+    }
+
+    @Test
+    public void findsNothingForUnknownTrigrams() {
+        StationsSearchIndex index = new StationsSearchIndex(stations("Gare Centrale"));
+
+        assertTrue(index.search("xyz").isEmpty());
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.fdesousa.bikesharinghub.fixtures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates answers of the citybik.es API, in the shape read by BikeNetworkParser and
+ * BikeNetworksListParser, for networks far larger than the real ones. The same settings and
+ * seed always give the same JSON, so that benchmarks and a local server can be compared run
+ * to run.
+ */
+public class NetworkPayloadGenerator {
+    /**
+     * Station name formats, the numbered ones being stripped by stripIdFromStationName.
+     */
+    public enum NameFormat {
+        /* "Gare Centrale" */
+        PLAIN,
+        /* "042 - Gare Centrale" */
+        NUMBERED,
+        /* "42- Gare Centrale" */
+        NUMBERED_NO_SPACE,
+        /* "42 Gare Centrale", not stripped as there is no dash */
+        NUMBERED_NO_DASH
+    }
+
+    /**
+     * Keys of the "extra" object of stations, as sent by the various vendors.
+     */
+    public enum Extra {
+        ADDRESS, DESCRIPTION,
+        BANKING, PAYMENT_TERMINAL, TICKET,
+        BONUS,
+        STATUS, STATUS_VALUE, LOCKED, OPEN,
+        EBIKES
+    }
+
+    private static final String[] WORDS = {
+            "Gare", "Place", "Rue", "Avenue", "Parc", "Marché", "Église", "Université",
+            "Hôpital", "Pont", "Quai", "Porte", "Musée", "Théâtre", "Stade", "Mairie"
+    };
+    /* values of "status" seen across vendors, closed and open ones */
+    private static final String[] STATUSES = {"OPEN", "CLOSED", "CLS", "1", "0", "offline", "online"};
+    private static final String[] STATUS_VALUES = {"In Service", "Not In Service"};
+
+    private long seed = 42;
+    private int stations = 1000;
+    private Set<Extra> extras = EnumSet.of(Extra.ADDRESS, Extra.BANKING, Extra.BONUS,
+            Extra.STATUS, Extra.EBIKES);
+    private boolean varyingExtras;
+    private NameFormat nameFormat = NameFormat.NUMBERED;
+    private double latitude = 50.8466;
+    private double longitude = 4.3528;
+    /* stations are spread over a square of this size */
+    private double spread = 0.09; // degrees
+
+    public NetworkPayloadGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public NetworkPayloadGenerator setStations(int stations) {
+        this.stations = stations;
+        return this;
+    }
+
+    public NetworkPayloadGenerator setExtras(Set<Extra> extras) {
+        this.extras = EnumSet.noneOf(Extra.class);
+        this.extras.addAll(extras);
+        return this;
+    }
+
+    /**
+     * Have the stations after the first send their extra keys in a random order, some of them
+     * with null values, instead of all in the order of the first one.
+     */
+    public NetworkPayloadGenerator setVaryingExtras(boolean varyingExtras) {
+        this.varyingExtras = varyingExtras;
+        return this;
+    }
+
+    public NetworkPayloadGenerator setNameFormat(NameFormat nameFormat) {
+        this.nameFormat = nameFormat;
+        return this;
+    }
+
+    public NetworkPayloadGenerator setLocation(double latitude, double longitude, double spread) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.spread = spread;
+        return this;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Answer of networks/{id}. Each network id gives its own stations.
+     */
+    public String network(String id) {
+        Random random = new Random(seed ^ id.hashCode());
+        StringBuilder json = new StringBuilder(stations * 400 + 300);
+        json.append("{\"network\":{\"company\":[\"").append(word(random))
+                .append(" SA\"],\"href\":\"/v2/networks/").append(id)
+                .append("\",\"id\":\"").append(id)
+                .append("\",\"location\":{\"city\":\"").append(word(random))
+                .append("\",\"country\":\"FR\",\"latitude\":").append(latitude)
+                .append(",\"longitude\":").append(longitude)
+                .append("},\"name\":\"").append(name(random)).append(" Vélo\",\"stations\":[");
+        for (int i = 0; i < stations; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendStation(json, random, i);
+        }
+        return json.append("]}}").toString();
+    }
+
+    private void appendStation(StringBuilder json, Random random, int index) {
+        int slots = 10 + random.nextInt(30);
+        int freeBikes = random.nextInt(slots + 1);
+        String name = name(random);
+
+        /* keys and values of the extra object, in the order they are sent */
+        ArrayList<String> extra = new ArrayList<>();
+        extra.add("\"uid\":" + index);
+        if (extras.contains(Extra.ADDRESS)) {
+            extra.add("\"address\":\"" + index + ' ' + name + '"');
+        }
+        if (extras.contains(Extra.DESCRIPTION)) {
+            extra.add("\"description\":\"" + name(random) + '"');
+        }
+        if (extras.contains(Extra.BANKING)) {
+            extra.add("\"banking\":" + random.nextBoolean());
+        }
+        if (extras.contains(Extra.PAYMENT_TERMINAL)) {
+            extra.add("\"payment-terminal\":" + random.nextBoolean());
+        }
+        if (extras.contains(Extra.TICKET)) {
+            /* some vendors send booleans as strings */
+            extra.add("\"ticket\":\"" + random.nextBoolean() + '"');
+        }
+        if (extras.contains(Extra.BONUS)) {
+            extra.add("\"bonus\":" + (random.nextInt(10) == 0));
+        }
+        if (extras.contains(Extra.STATUS)) {
+            extra.add("\"status\":\"" + STATUSES[random.nextInt(STATUSES.length)] + '"');
+        }
+        if (extras.contains(Extra.STATUS_VALUE)) {
+            extra.add("\"statusValue\":\"" + STATUS_VALUES[random.nextInt(20) == 0 ? 1 : 0] + '"');
+        }
+        if (extras.contains(Extra.LOCKED)) {
+            extra.add("\"locked\":" + (random.nextInt(20) == 0));
+        }
+        if (extras.contains(Extra.OPEN)) {
+            extra.add("\"open\":" + (random.nextInt(20) != 0));
+        }
+        if (extras.contains(Extra.EBIKES)) {
+            extra.add("\"ebikes\":" + random.nextInt(freeBikes + 1));
+        }
+        if (varyingExtras && index > 0) {
+            Collections.shuffle(extra, random);
+            for (int i = 0; i < extra.size(); i++) {
+                if (random.nextInt(5) == 0) {
+                    String entry = extra.get(i);
+                    extra.set(i, entry.substring(0, entry.indexOf(':') + 1) + "null");
+                }
+            }
+        }
+
+        json.append("{\"empty_slots\":").append(slots - freeBikes).append(",\"extra\":{");
+        for (int i = 0; i < extra.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(extra.get(i));
+        }
+        json.append("},\"free_bikes\":").append(freeBikes)
+                .append(",\"id\":\"").append(String.format(Locale.US, "%016x%08x", random.nextLong(), index))
+                .append("\",\"latitude\":").append(latitude + (random.nextDouble() - 0.5) * spread)
+                .append(",\"longitude\":").append(longitude + (random.nextDouble() - 0.5) * spread)
+                .append(",\"name\":\"").append(formatName(index, name))
+                .append("\",\"timestamp\":\"2026-10-17T08:")
+                .append(String.format(Locale.US, "%02d:%02d", random.nextInt(60), random.nextInt(60)))
+                .append(".000000Z\"}");
+    }
+
+    /**
+     * Answer of networks, listing the given ids, all located around the same place.
+     */
+    public String networksList(String... ids) {
+        Random random = new Random(seed);
+        StringBuilder json = new StringBuilder(ids.length * 250 + 20);
+        json.append("{\"networks\":[");
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"company\":[\"").append(word(random))
+                    .append(" SA\"],\"href\":\"/v2/networks/").append(ids[i])
+                    .append("\",\"id\":\"").append(ids[i])
+                    .append("\",\"location\":{\"city\":\"").append(word(random))
+                    .append("\",\"country\":\"FR\",\"latitude\":").append(latitude)
+                    .append(",\"longitude\":").append(longitude)
+                    .append("},\"name\":\"").append(name(random)).append(" Vélo\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Ids network-0 to network-(count - 1), to list many networks.
+     */
+    public static String[] networkIds(int count) {
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = "network-" + i;
+        }
+        return ids;
+    }
+
+    private String formatName(int index, String name) {
+        switch (nameFormat) {
+            case NUMBERED:
+                return String.format(Locale.US, "%03d - %s", index, name);
+            case NUMBERED_NO_SPACE:
+                return index + "- " + name;
+            case NUMBERED_NO_DASH:
+                return index + " " + name;
+            default:
+                return name;
+        }
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String name(Random random) {
+        return word(random) + " " + word(random);
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2026 François FERREIRA DE SOUSA.
+ *
+ * This file is part of BikeSharingHub.
+ *
+ * BikeSharingHub is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * BikeSharingHub is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with BikeSharingHub.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.fdesousa.bikesharinghub.fixtures;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in of the citybik.es API, serving networks and networks/{id} under /v2/ from
+ * fixtures or from a {@link NetworkPayloadGenerator}. Latency, bandwidth, server errors and
+ * truncated bodies can be injected, and conditional requests are answered like the real API,
+ * so that the download, parse and store path can be exercised offline.
+ *
+ * Run it with ./gradlew :core:standInServer --args='--stations=5000 --latency=300' and set
+ * the API URL of the app to the printed base URL. Release builds only allow HTTPS, so a build
+ * permitting cleartext traffic is needed to use it from a device.
+ */
+public class StandInApiServer {
+    private static final String BASE_PATH = "/v2/";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final NetworkPayloadGenerator generator;
+    private final String[] networkIds;
+    /* bodies by path relative to the base path, generated once */
+    private final ConcurrentHashMap<String, byte[]> bodies = new ConcurrentHashMap<>();
+    private final Random random = new Random(42);
+
+    private volatile int latency; // ms
+    private volatile int bandwidth; // bytes per second, 0 for unlimited
+    private volatile double errorRate;
+    private volatile double truncateRate;
+    private volatile boolean conditionalRequests = true;
+
+    /**
+     * @param port the port to listen on, 0 for any free port
+     * @param networkIds the networks listed, whose stations are generated
+     */
+    public StandInApiServer(int port, NetworkPayloadGenerator generator, String... networkIds)
+            throws IOException {
+        this.generator = generator;
+        this.networkIds = networkIds.clone();
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext(BASE_PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    serve(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        /* the app downloads networks concurrently, slow answers must not queue up */
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * URL to set as API URL, ending with a slash as the app expects.
+     */
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + BASE_PATH;
+    }
+
+    /**
+     * Delay before each answer.
+     */
+    public StandInApiServer setLatency(int millis) {
+        latency = millis;
+        return this;
+    }
+
+    /**
+     * Bodies are sent at most at this rate, 0 for unlimited.
+     */
+    public StandInApiServer setBandwidth(int bytesPerSecond) {
+        bandwidth = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * Share of the requests answered with HTTP 503.
+     */
+    public StandInApiServer setErrorRate(double rate) {
+        errorRate = rate;
+        return this;
+    }
+
+    /**
+     * Share of the bodies cut in their middle, the connection being closed.
+     */
+    public StandInApiServer setTruncateRate(double rate) {
+        truncateRate = rate;
+        return this;
+    }
+
+    /**
+     * Whether bodies get an ETag, and requests sending it back are answered with HTTP 304.
+     */
+    public StandInApiServer setConditionalRequests(boolean enabled) {
+        conditionalRequests = enabled;
+        return this;
+    }
+
+    /**
+     * Serve the given JSON instead of a generated one, path being for example "networks" or
+     * "networks/velib".
+     */
+    public StandInApiServer putFixture(String path, String json) {
+        bodies.put(path, json.getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath().substring(BASE_PATH.length());
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (draw(errorRate)) {
+            exchange.sendResponseHeaders(503, -1);
+            return;
+        }
+
+        byte[] body = getBody(path);
+        if (body == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        if (conditionalRequests) {
+            String eTag = "\"" + Integer.toHexString(Arrays.hashCode(body)) + "\"";
+            if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", eTag);
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        int length = draw(truncateRate) ? body.length / 2 : body.length;
+        OutputStream output = exchange.getResponseBody();
+        try {
+            write(output, body, length);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        /* closing a body shorter than announced drops the connection */
+    }
+
+    private byte[] getBody(String path) {
+        byte[] body = bodies.get(path);
+        if (body != null) {
+            return body;
+        }
+        String json;
+        if (path.equals("networks")) {
+            json = generator.networksList(networkIds);
+        } else if (path.startsWith("networks/") && isListed(path.substring("networks/".length()))) {
+            json = generator.network(path.substring("networks/".length()));
+        } else {
+            return null;
+        }
+        body = json.getBytes(StandardCharsets.UTF_8);
+        byte[] previous = bodies.putIfAbsent(path, body);
+        return previous != null ? previous : body;
+    }
+
+    private boolean isListed(String networkId) {
+        for (String id : networkIds) {
+            if (id.equals(networkId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void write(OutputStream output, byte[] body, int length)
+            throws IOException, InterruptedException {
+        int rate = bandwidth;
+        if (rate <= 0) {
+            output.write(body, 0, length);
+            return;
+        }
+        /* a tenth of the rate every 100 ms */
+        int chunk = Math.max(1, rate / 10);
+        for (int offset = 0; offset < length; offset += chunk) {
+            output.write(body, offset, Math.min(chunk, length - offset));
+            output.flush();
+            Thread.sleep(100);
+        }
+    }
+
+    private boolean draw(double rate) {
+        if (rate <= 0) {
+            return false;
+        }
+        synchronized (random) {
+            return random.nextDouble() < rate;
+        }
+    }
+
+    /**
+     * Options: --port=8080 --networks=10 --stations=1000 --latency=ms --bandwidth=bytes/s
+     * --error-rate=0.1 --truncate-rate=0.1 --no-conditional
+     */
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        int networks = 10;
+        int stations = 1000;
+        int latency = 0;
+        int bandwidth = 0;
+        double errorRate = 0;
+        double truncateRate = 0;
+        boolean conditional = true;
+
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(value);
+            } else if (arg.startsWith("--networks=")) {
+                networks = Integer.parseInt(value);
+            } else if (arg.startsWith("--stations=")) {
+                stations = Integer.parseInt(value);
+            } else if (arg.startsWith("--latency=")) {
+                latency = Integer.parseInt(value);
+            } else if (arg.startsWith("--bandwidth=")) {
+                bandwidth = Integer.parseInt(value);
+            } else if (arg.startsWith("--error-rate=")) {
+                errorRate = Double.parseDouble(value);
+            } else if (arg.startsWith("--truncate-rate=")) {
+                truncateRate = Double.parseDouble(value);
+            } else if (arg.equals("--no-conditional")) {
+                conditional = false;
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        StandInApiServer server = new StandInApiServer(port,
+                new NetworkPayloadGenerator().setStations(stations),
+                NetworkPayloadGenerator.networkIds(networks))
+                .setLatency(latency)
+                .setBandwidth(bandwidth)
+                .setErrorRate(errorRate)
+                .setTruncateRate(truncateRate)
+                .setConditionalRequests(conditional);
+        server.start();
+        System.out.println("Serving " + networks + " networks of " + stations + " stations at "
+                + server.getBaseUrl());
+    }
+}